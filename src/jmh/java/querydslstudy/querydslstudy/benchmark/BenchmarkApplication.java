@@ -0,0 +1,55 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import querydslstudy.querydslstudy.QueryDslStudyApplication;
+import querydslstudy.querydslstudy.loader.MemberBulkLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 벤치마크용 스프링 컨텍스트
+ * 내장 H2 메모리 DB 를 쓰고 MemberBulkLoader 로 members 건수만큼 적재한다.
+ * SQL 로그, 주석, p6spy 는 측정값을 왜곡하므로 끈다.
+ * */
+public final class BenchmarkApplication {
+
+    public static final int TEAM_COUNT = 10;
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(int members, String... extraProperties) {
+        //application.yml 의 spring.profiles.active(local) 보다 우선하도록 커맨드라인 인자로 넘긴다.
+        List<String> properties = new ArrayList<>();
+        properties.add("spring.profiles.active=jmh");
+        properties.add("spring.datasource.url=jdbc:h2:mem:jmh" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.add("spring.jpa.hibernate.ddl-auto=create");
+        properties.add("spring.jpa.properties.hibernate.format_sql=false");
+        properties.add("spring.jpa.properties.hibernate.use_sql_comments=false");
+        properties.add("logging.level.org.hibernate.SQL=warn");
+        properties.add("decorator.datasource.enabled=false");
+        for (String extraProperty : extraProperties) {
+            properties.add(extraProperty);
+        }
+        String[] args = properties.stream()
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QueryDslStudyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+        seed(context, members);
+        return context;
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int members) {
+        List<String> teamNames = new ArrayList<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teamNames.add("team" + i);
+        }
+        context.getBean(MemberBulkLoader.class).load(teamNames, members);
+    }
+}
@@ -0,0 +1,103 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+import querydslstudy.querydslstudy.QueryDslStudyApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * /v1 ~ /v3/members 부하 테스트
+ * config=debug-sql 은 debug-sql 프로파일(SQL 디버그 로그, 주석, p6spy statement 로그), config=perf 는 perf 프로파일이다.
+ * statistics 는 hibernate.generate_statistics 로, 설정과 관계없이 켠 것과 끈 것을 비교한다.
+ * p6spy=false 는 p6spy 데코레이터를 빼서 느린 SQL 기록(SlowQueryListener)과 SQL 수 집계 비용을 뺀 값이다.
+ *
+ * DB 는 기본으로 내장 H2 를 쓰고, 실제 PostgreSQL 로 비교하려면
+ * -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/query_dsl?reWriteBatchedInserts=true -Dbenchmark.db.username=... 로 실행한다.
+ * */
+@State(Scope.Benchmark)
+@Threads(16)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberEndpointBenchmark {
+
+    @Param({"debug-sql", "perf"})
+    String config;
+
+    @Param({"false", "true"})
+    String statistics;
+
+    @Param({"true", "false"})
+    String p6spy;
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    RestTemplate restTemplate;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.profiles.active=jmh," + config);
+        args.add("--server.port=0");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        args.add("--spring.jpa.properties.hibernate.generate_statistics=" + statistics);
+        args.add("--decorator.datasource.enabled=" + p6spy);
+
+        String dbUrl = System.getProperty("benchmark.db.url");
+        if (dbUrl == null) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:endpoint" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.datasource.username=sa");
+            args.add("--spring.datasource.password=");
+            args.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        } else {
+            args.add("--spring.datasource.url=" + dbUrl);
+            args.add("--spring.datasource.username=" + System.getProperty("benchmark.db.username", "postgres"));
+            args.add("--spring.datasource.password=" + System.getProperty("benchmark.db.password", ""));
+        }
+
+        context = new SpringApplicationBuilder(QueryDslStudyApplication.class)
+                .run(args.toArray(new String[0]));
+        BenchmarkApplication.seed(context, members);
+
+        restTemplate = new RestTemplate();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String v1() {
+        return restTemplate.getForObject(baseUrl + "/v1/members?teamName=team3&ageGoe=10&ageLoe=12", String.class);
+    }
+
+    @Benchmark
+    public String v2() {
+        return restTemplate.getForObject(baseUrl + "/v2/members?teamName=team3&page=5&size=20", String.class);
+    }
+
+    @Benchmark
+    public String v3() {
+        return restTemplate.getForObject(baseUrl + "/v3/members?teamName=team3&page=5&size=20", String.class);
+    }
+}
@@ -0,0 +1,61 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+
+import java.util.List;
+
+/*
+ * 같은 쿼리를 JPQL 문자열로 실행할 때와 Querydsl 로 만들어 실행할 때 비교
+ * findAll 은 전체 엔티티를 읽으므로 건수를 작게 잡는다.
+ * */
+@State(Scope.Benchmark)
+public class MemberFindBenchmark {
+
+    @Param({"1000", "10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    String username;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(members);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        username = "member" + (members / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findAll() {
+        return memberJpaRepository.findAll();
+    }
+
+    @Benchmark
+    public List<Member> findAll_QueryDsl() {
+        return memberJpaRepository.findAll_QueryDsl();
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        return memberJpaRepository.findByUsername(username);
+    }
+
+    @Benchmark
+    public List<Member> findByUsername_QueryDsl() {
+        return memberJpaRepository.findByUsername_QueryDsl(username);
+    }
+}
@@ -0,0 +1,83 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.readmodel.MemberReadModel;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * /v1/members 조회: DB(searchByWhere) vs 메모리 읽기 모델(MemberReadModel)
+ * 힙 사용량은 member.read-model.bytes 게이지로, 할당량은 -prof gc 로 비교한다.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberReadModelBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberReadModel readModel;
+    MemberSearchCondition teamAndAge;
+    MemberSearchCondition username;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkApplication.start(members, "member.read-model.enabled=true");
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        readModel = context.getBean(MemberReadModel.class);
+        //시작 시 적재와 시드 데이터 insert 가 겹칠 수 있으므로 한 번 더 적재하고 끝날 때까지 기다린다.
+        readModel.requestRebuild();
+        while (!readModel.isReady()) {
+            Thread.sleep(10);
+        }
+
+        teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("team1");
+        teamAndAge.setAgeGoe(20);
+        teamAndAge.setAgeLoe(21);
+        username = new MemberSearchCondition();
+        username.setUsername("member" + members / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> databaseTeamAndAge() {
+        return memberJpaRepository.searchByWhere(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> readModelTeamAndAge() {
+        return readModel.search(teamAndAge).orElseThrow(IllegalStateException::new);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> databaseUsername() {
+        return memberJpaRepository.searchByWhere(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> readModelUsername() {
+        return readModel.search(username).orElseThrow(IllegalStateException::new);
+    }
+}
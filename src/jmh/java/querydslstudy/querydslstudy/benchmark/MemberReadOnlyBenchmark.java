@@ -0,0 +1,72 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+
+import java.util.List;
+
+/*
+ * 엔티티 1000건 조회 시 로딩 방식별 메모리 비교
+ * gc 프로파일러의 gc.alloc.rate.norm(B/op) 이 1000건당 할당량이다.
+ * managed 는 엔티티마다 dirty checking 스냅샷과 EntityEntry 를 만들고,
+ * readOnly 는 스냅샷을 생략하고, stateless 는 영속성 컨텍스트 자체를 쓰지 않는다.
+ * */
+@State(Scope.Benchmark)
+public class MemberReadOnlyBenchmark {
+
+    @Param({"1000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(members);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        condition = new MemberSearchCondition();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managed() {
+        return readWrite.execute(status -> memberJpaRepository.searchMember(condition));
+    }
+
+    @Benchmark
+    public List<Member> readOnlyHint() {
+        return readWrite.execute(status -> memberJpaRepository.searchMemberReadOnly(condition));
+    }
+
+    @Benchmark
+    public List<Member> readOnlyTransaction() {
+        return readOnly.execute(status -> memberJpaRepository.searchMember(condition));
+    }
+
+    @Benchmark
+    public List<Member> stateless() {
+        return readOnly.execute(status -> memberJpaRepository.searchMemberStateless(condition));
+    }
+}
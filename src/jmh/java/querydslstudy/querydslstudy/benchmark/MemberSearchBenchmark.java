@@ -0,0 +1,72 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+import java.util.List;
+
+/*
+ * 동적 쿼리 방식(BooleanBuilder vs where 파라미터)과 페이징 방식(simple vs complex) 비교
+ * */
+@State(Scope.Benchmark)
+public class MemberSearchBenchmark {
+
+    @Param({"1000", "100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(members);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        pageRequest = PageRequest.of(2, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhere() {
+        return memberJpaRepository.searchByWhere(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+}
@@ -0,0 +1,64 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+import java.util.List;
+
+/*
+ * Querydsl 로 매번 쿼리를 만드는 search() 와 모양별 템플릿을 쓰는 searchByTemplate() 비교
+ * 결과 건수가 적은 조건일수록 쿼리 생성 비용의 비중이 커진다.
+ * */
+@State(Scope.Benchmark)
+public class MemberSearchTemplateBenchmark {
+
+    @Param({"1000"})
+    int members;
+
+    @Param({"none", "username", "teamName+ageGoe+ageLoe", "all"})
+    String shape;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(members);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        if (shape.equals("username") || shape.equals("all")) {
+            condition.setUsername("member7");
+        }
+        if (shape.startsWith("teamName") || shape.equals("all")) {
+            condition.setTeamName("team7");
+            condition.setAgeGoe(0);
+            condition.setAgeLoe(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> querydsl() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> template() {
+        return memberRepository.searchByTemplate(condition);
+    }
+}
@@ -0,0 +1,93 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import querydslstudy.querydslstudy.controller.MemberColumnarWriter;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * /v1/members 응답 직렬화 비교 (DB 없이 직렬화만)
+ * 기본 Jackson 객체 배열 vs 컬럼 JSON vs 컬럼 Smile
+ *
+ * 행당 CPU 는 op 시간 / rows, 행당 할당은 gc.alloc.rate.norm / rows, 행당 바이트는 bytes / rows 로 본다.
+ * bytes 는 @AuxCounters 라 같은 결과표에 벤치마크별로 나온다.
+ * */
+@State(Scope.Thread)
+public class MemberSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    int rows;
+
+    @Param({"10"})
+    int teams;
+
+    List<MemberTeamDto> members;
+    ObjectMapper objectMapper;
+    JsonFactory jsonFactory;
+    JsonFactory smileFactory;
+    ByteArrayOutputStream out;
+
+    /*
+     * op 하나가 만든 응답 크기. 누적하지 않고 매번 덮어쓴다.
+     * */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % teams + 1;
+            members.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        objectMapper = new ObjectMapper();
+        jsonFactory = new JsonFactory();
+        smileFactory = new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        out = new ByteArrayOutputStream(rows * 128);
+    }
+
+    @Benchmark
+    public int jackson(Size size) throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, members);
+        size.bytes = out.size();
+        return out.size();
+    }
+
+    @Benchmark
+    public int columnarJson(Size size) throws IOException {
+        return columnar(jsonFactory, size);
+    }
+
+    @Benchmark
+    public int columnarSmile(Size size) throws IOException {
+        return columnar(smileFactory, size);
+    }
+
+    private int columnar(JsonFactory factory, Size size) throws IOException {
+        out.reset();
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            MemberColumnarWriter.write(generator, members);
+        }
+        size.bytes = out.size();
+        return out.size();
+    }
+}
@@ -0,0 +1,60 @@
+package querydslstudy.querydslstudy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+/*
+ * 페이지 + count 두 번 조회(searchPageComplex) vs count(*) over() 한 번 조회(searchPageWindowed)
+ * 나이는 0 ~ 99 가 고르게 들어가므로 ageLoe 로 조건에 맞는 비율(selectivity, %)을 조절한다.
+ * count 캐시를 끄고(ttl 0) 매번 count 쿼리를 실행하게 한다.
+ * */
+@State(Scope.Benchmark)
+public class MemberWindowedPageBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    @Param({"1", "10", "50", "100"})
+    int selectivity;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(members, "member.search.count-cache.ttl=0s");
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setAgeLoe(selectivity - 1);
+        pageRequest = PageRequest.of(2, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> twoQueries() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> windowedTotal() {
+        return memberRepository.searchPageWindowed(condition, pageRequest);
+    }
+}
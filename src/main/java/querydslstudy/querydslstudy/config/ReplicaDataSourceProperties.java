@@ -0,0 +1,31 @@
+package querydslstudy.querydslstudy.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+
+    /*
+     * 이 값보다 뒤처진 replica 로는 읽기를 보내지 않는다.
+     * */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /*
+     * replica 지연(초)을 돌려주는 쿼리. 없으면 연결 가능 여부만 확인한다.
+     * PostgreSQL: select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+     * */
+    private String lagQuery;
+
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,89 @@
+package querydslstudy.querydslstudy.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * replica 상태를 주기적으로 확인한다.
+ * 연결이 안되거나 지연이 maxLag 보다 크면 사용 불가로 보고, 라우팅은 primary 로 후퇴한다.
+ * */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean available;
+    private volatile double lastLagSeconds;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+    }
+
+    public void start() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void check() {
+        boolean wasAvailable = available;
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                available = false;
+            } else {
+                lastLagSeconds = lagQuery == null ? 0 : queryLag(connection);
+                available = lastLagSeconds <= maxLagSeconds;
+            }
+        } catch (Exception e) {
+            available = false;
+            log.debug("replica check failed", e);
+        }
+        if (wasAvailable != available) {
+            log.warn("replica availability changed. available={}, lagSeconds={}", available, lastLagSeconds);
+        }
+    }
+
+    private double queryLag(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public double getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package querydslstudy.querydslstudy.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica 로, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 등록되지 않았으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 실제 SQL 실행 시점에 라우팅되게 한다.
+ * */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final LongAdder primaryRoutes = new LongAdder();
+    private final LongAdder replicaRoutes = new LongAdder();
+    private final LongAdder replicaFallbacks = new LongAdder();
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (lagMonitor.isAvailable()) {
+                replicaRoutes.increment();
+                return Route.REPLICA;
+            }
+            replicaFallbacks.increment();
+        }
+        primaryRoutes.increment();
+        return Route.PRIMARY;
+    }
+
+    public long getPrimaryRoutes() {
+        return primaryRoutes.sum();
+    }
+
+    public long getReplicaRoutes() {
+        return replicaRoutes.sum();
+    }
+
+    /*
+     * 읽기 전용이지만 replica 를 쓸 수 없어서 primary 로 보낸 횟수
+     * */
+    public long getReplicaFallbacks() {
+        return replicaFallbacks.sum();
+    }
+
+    public ReplicaLagMonitor getLagMonitor() {
+        return lagMonitor;
+    }
+}
@@ -0,0 +1,101 @@
+package querydslstudy.querydslstudy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * member.datasource.routing.enabled=true 일 때만 등록된다.
+ * primary 는 spring.datasource.*, replica 는 member.datasource.replica.* 설정을 쓴다.
+ * */
+@Configuration
+@ConditionalOnProperty(name = "member.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("member.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(ReplicaDataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .driverClassName(properties.getDriverClassName())
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                               ReplicaDataSourceProperties properties) {
+        return new ReplicaLagMonitor(replicaDataSource, properties.getLagQuery(),
+                properties.getMaxLag(), properties.getCheckInterval());
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                      @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                                      ReplicaLagMonitor replicaLagMonitor) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource);
+        targets.put(ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource);
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaLagMonitor);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /*
+     * 라우팅 횟수와 replica 지연
+     * */
+    @Bean
+    public MeterBinder routingDataSourceMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> {
+            FunctionCounter.builder("datasource.routing", routingDataSource, ReplicaRoutingDataSource::getPrimaryRoutes)
+                    .tag("route", "primary")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing", routingDataSource, ReplicaRoutingDataSource::getReplicaRoutes)
+                    .tag("route", "replica")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing", routingDataSource, ReplicaRoutingDataSource::getReplicaFallbacks)
+                    .tag("route", "fallback")
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", routingDataSource.getLagMonitor(), ReplicaLagMonitor::getLastLagSeconds)
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
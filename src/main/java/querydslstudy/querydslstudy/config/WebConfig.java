@@ -0,0 +1,47 @@
+package querydslstudy.querydslstudy.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import querydslstudy.querydslstudy.controller.MemberColumnarMessageConverter;
+import querydslstudy.querydslstudy.support.QueryCountInterceptor;
+import querydslstudy.querydslstudy.support.QueryCountScope;
+import querydslstudy.querydslstudy.support.QueryCounter;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final QueryCounter queryCounter;
+
+    //요청마다 SQL 을 기록하므로 기본은 끄고 local/test 프로파일에서만 켠다.
+    @Value("${member.query-guard.enabled:false}")
+    private boolean queryGuardEnabled;
+
+    @Value("${member.query-guard.n-plus-one-threshold:" + QueryCountScope.DEFAULT_N_PLUS_ONE_THRESHOLD + "}")
+    private int nPlusOneThreshold;
+
+    @Value("${member.query-guard.max-queries:20}")
+    private int maxQueries;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (queryGuardEnabled) {
+            registry.addInterceptor(new QueryCountInterceptor(queryCounter, nPlusOneThreshold, maxQueries));
+        }
+    }
+
+    /*
+     * 컬럼 형식은 Accept 에 전용 미디어 타입을 명시했을 때만 선택되므로(Accept 가 없거나 와일드카드면 기존 JSON) 기존 응답에는 영향이 없다.
+     * Jackson 컨버터도 application/*+json 을 쓸 수 있다고 답하므로 그보다 앞에 둔다.
+     * */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new MemberColumnarMessageConverter());
+    }
+}
@@ -0,0 +1,24 @@
+package querydslstudy.querydslstudy.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/*
+ * JPQL 에는 윈도우 함수 문법이 없으므로 SQL 함수로 등록해서 count_over() 로 쓴다.
+ * limit/offset 은 윈도우 계산 이후에 적용되므로 페이지 row 마다 전체 건수가 붙는다.
+ * PostgreSQL, H2(1.4.198 이상) 모두 지원한다.
+ *
+ * hibernate.metadata_builder_contributor 설정으로 등록한다(application.yml).
+ * */
+public class WindowFunctionContributor implements MetadataBuilderContributor {
+
+    public static final String COUNT_OVER = "count_over";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(COUNT_OVER,
+                new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+}
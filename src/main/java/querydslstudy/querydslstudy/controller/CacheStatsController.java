@@ -0,0 +1,52 @@
+package querydslstudy.querydslstudy.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import querydslstudy.querydslstudy.dto.CacheRegionStats;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 2차 캐시 리전별 hit/miss/put 과 hit ratio
+ * 엔티티 리전뿐 아니라 쿼리 결과 리전(default-query-results-region), timestamps 리전도 나온다.
+ * cache 프로파일에서 hibernate.generate_statistics 를 켜야 값이 쌓인다.
+ * */
+@Profile("cache")
+@RestController
+public class CacheStatsController {
+
+    private final Statistics statistics;
+
+    public CacheStatsController(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @GetMapping("/cache/stats")
+    public List<CacheRegionStats> cacheStats() {
+        List<CacheRegionStats> result = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            //getDomainDataRegionStatistics 는 쿼리 결과 리전이면 IllegalArgumentException 을 던진다.
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            result.add(new CacheRegionStats(region,
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()));
+        }
+        result.add(new CacheRegionStats("query-cache",
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                -1));
+        return result;
+    }
+}
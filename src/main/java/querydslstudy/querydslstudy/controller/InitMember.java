@@ -4,12 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import querydslstudy.querydslstudy.entity.Member;
-import querydslstudy.querydslstudy.entity.Team;
+import querydslstudy.querydslstudy.loader.MemberBulkLoader;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.Arrays;
 
 @Profile("local")
 @Component
@@ -24,22 +22,15 @@ public class InitMember {
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService{
-        @PersistenceContext
-        private EntityManager em;
+
+        private final MemberBulkLoader memberBulkLoader;
 
         @Transactional
         public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-
-                Team selectedTeam = i%2 == 0? teamA : teamB;
-                em.persist(new Member("member"+i , i , selectedTeam));
-            }
+            //member0 ~ member99 를 teamA, teamB 에 번갈아 넣는다.
+            memberBulkLoader.load(Arrays.asList("teamA", "teamB"), 100);
         }
     }
 }
@@ -0,0 +1,91 @@
+package querydslstudy.querydslstudy.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/*
+ * List<MemberTeamDto> 를 반환하는 핸들러에 Accept 로 아래 타입을 요청하면 컬럼 형식(MemberColumnarWriter)으로 응답한다.
+ * application/vnd.member.columnar+json  : 컬럼 JSON
+ * application/vnd.member.columnar+smile : 같은 구조의 Smile(바이너리 JSON)
+ * 그 외(application/json 등)는 기존 Jackson 컨버터가 그대로 처리한다. 쓰기 전용이다.
+ *
+ * Accept 가 없거나 와일드카드(모든 타입)이면 기존 JSON 이 나가야 하므로 컬럼 타입을 명시적으로 요청한 경우에만 쓴다.
+ * 핸들러는 produces 에 application/json 을 먼저 두고 컬럼 타입을 함께 선언한다(MemberController /v1/members).
+ * */
+public class MemberColumnarMessageConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.member.columnar+json";
+    public static final String COLUMNAR_SMILE_VALUE = "application/vnd.member.columnar+smile";
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+    public static final MediaType COLUMNAR_SMILE = MediaType.parseMediaType(COLUMNAR_SMILE_VALUE);
+
+    //응답 스트림은 컨테이너가 닫는다.
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final JsonFactory smileFactory = new SmileFactory()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public MemberColumnarMessageConverter() {
+        super(COLUMNAR_JSON, COLUMNAR_SMILE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !isColumnar(mediaType)) {
+            return false;
+        }
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        Class<?> raw = resolvableType.resolve();
+        return raw != null && List.class.isAssignableFrom(raw)
+                && MemberTeamDto.class.equals(resolvableType.getGeneric(0).resolve());
+    }
+
+    private static boolean isColumnar(MediaType mediaType) {
+        return mediaType != null
+                && (COLUMNAR_JSON.equalsTypeAndSubtype(mediaType) || COLUMNAR_SMILE.equalsTypeAndSubtype(mediaType));
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> rows, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        JsonFactory factory = contentType != null && COLUMNAR_SMILE.isCompatibleWith(contentType) ? smileFactory : jsonFactory;
+        try (JsonGenerator generator = factory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            MemberColumnarWriter.write(generator, rows);
+        }
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar member format is write-only", inputMessage);
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar member format is write-only", inputMessage);
+    }
+}
@@ -0,0 +1,90 @@
+package querydslstudy.querydslstudy.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * List<MemberTeamDto> 를 행이 아니라 컬럼 단위로 쓴다.
+ * 필드 이름은 한번만 나오고, 팀은 teams 사전에 한번씩만 쓰고 행에서는 사전의 인덱스(팀이 없으면 -1)로 가리킨다.
+ *
+ * {"size":2,
+ *  "teams":{"id":[1],"name":["teamA"]},
+ *  "memberId":[3,4],"username":["member1","member2"],"age":[10,20],"team":[0,0]}
+ *
+ * JsonGenerator 에 바로 쓰므로 중간 Map/트리를 만들지 않는다. 같은 코드로 JSON, Smile 모두 쓴다.
+ * */
+public final class MemberColumnarWriter {
+
+    private MemberColumnarWriter() {
+    }
+
+    public static void write(JsonGenerator generator, List<MemberTeamDto> rows) throws IOException {
+        int size = rows.size();
+        Map<Long, Integer> teamIndex = new HashMap<>();
+        List<MemberTeamDto> teams = new ArrayList<>();
+        int[] teamRefs = new int[size];
+        for (int i = 0; i < size; i++) {
+            MemberTeamDto row = rows.get(i);
+            if (row.getTeamId() == null) {
+                teamRefs[i] = -1;
+                continue;
+            }
+            Integer index = teamIndex.get(row.getTeamId());
+            if (index == null) {
+                index = teams.size();
+                teamIndex.put(row.getTeamId(), index);
+                teams.add(row);
+            }
+            teamRefs[i] = index;
+        }
+
+        generator.writeStartObject();
+        generator.writeNumberField("size", size);
+
+        generator.writeObjectFieldStart("teams");
+        generator.writeArrayFieldStart("id");
+        for (MemberTeamDto team : teams) {
+            generator.writeNumber(team.getTeamId());
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("name");
+        for (MemberTeamDto team : teams) {
+            generator.writeString(team.getTeamName());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+
+        generator.writeArrayFieldStart("memberId");
+        for (MemberTeamDto row : rows) {
+            if (row.getMemberId() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(row.getMemberId());
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("username");
+        for (MemberTeamDto row : rows) {
+            generator.writeString(row.getUsername());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("age");
+        for (MemberTeamDto row : rows) {
+            generator.writeNumber(row.getAge());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("team");
+        generator.writeArray(teamRefs, 0, size);
+
+        generator.writeEndObject();
+    }
+}
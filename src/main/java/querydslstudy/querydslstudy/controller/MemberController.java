@@ -1,27 +1,58 @@
 package querydslstudy.querydslstudy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import querydslstudy.querydslstudy.dto.MemberKeysetPage;
 import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
 import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.readmodel.MemberReadModel;
+import querydslstudy.querydslstudy.repository.MemberCursor;
+import querydslstudy.querydslstudy.repository.MemberField;
 import querydslstudy.querydslstudy.repository.MemberJpaRepository;
 import querydslstudy.querydslstudy.repository.MemberRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_KEYSET_SIZE = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final Optional<MemberReadModel> readModel;
 
-    @GetMapping("/v1/members")
+    /*
+     * member.read-model.enabled=true 이면 메모리 읽기 모델로 조회하고, 아직 적재 중이면 DB 로 조회한다.
+     * */
+    @GetMapping(value = "/v1/members", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MemberColumnarMessageConverter.COLUMNAR_JSON_VALUE, MemberColumnarMessageConverter.COLUMNAR_SMILE_VALUE})
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.searchByWhere(condition);
+        return readModel
+                .flatMap(model -> model.search(condition))
+                .orElseGet(() -> memberJpaRepository.searchByWhere(condition));
+    }
+
+    /*
+     * fields=memberId,username 처럼 필요한 필드만 조회한다. 팀 필드와 팀 조건이 없으면 team 조인도 생략된다.
+     * */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<MemberSparseDto> searchMemberV1Sparse(MemberSearchCondition condition, @RequestParam String fields) {
+        return memberRepository.searchSparse(condition, MemberField.parse(fields));
     }
 
     @GetMapping("/v2/members")
@@ -29,8 +60,61 @@ public class MemberController {
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
+    @GetMapping(value = "/v2/members", params = "fields")
+    public Page<MemberSparseDto> searchMemberV2Sparse(MemberSearchCondition condition, @RequestParam String fields,
+                                                      Pageable pageable) {
+        return memberRepository.searchPageSparse(condition, MemberField.parse(fields), pageable);
+    }
+
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean estimate,
+                                              @RequestParam(defaultValue = "false") boolean parallel,
+                                              @RequestParam(defaultValue = "false") boolean windowed) {
+        if (estimate) {
+            return memberRepository.searchPageEstimated(condition, pageable);
+        }
+        if (parallel) {
+            return memberRepository.searchPageParallel(condition, pageable);
+        }
+        if (windowed) {
+            return memberRepository.searchPageWindowed(condition, pageable);
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    @GetMapping("/v4/members")
+    public MemberKeysetPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "ID") MemberCursor.Sort sort,
+                                           @RequestParam(defaultValue = "20") int size) {
+        MemberCursor memberCursor = cursor != null ? MemberCursor.decode(cursor) : MemberCursor.first(sort);
+        int pageSize = Math.max(1, Math.min(size, MAX_KEYSET_SIZE));
+        return memberRepository.searchKeyset(condition, memberCursor, pageSize);
+    }
+
+    /*
+     * 전체 건수 없이 다음 페이지 여부만 내려준다(count 쿼리 없음).
+     * */
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    /*
+     * 전체 결과를 메모리에 올리지 않고 DB 에서 읽는 대로 응답에 쓴다.
+     * */
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition,
+                                                               @RequestParam(defaultValue = "NDJSON") MemberExportWriter.Format format) {
+        StreamingResponseBody body = out -> {
+            try (MemberExportWriter writer = MemberExportWriter.of(format, out, objectMapper)) {
+                memberRepository.stream(condition, writer);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + format.getExtension())
+                .body(body);
+    }
 }
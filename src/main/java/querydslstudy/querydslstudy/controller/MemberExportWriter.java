@@ -0,0 +1,131 @@
+package querydslstudy.querydslstudy.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/*
+ * 조회 결과를 한 줄씩 바로 응답 스트림에 쓴다.
+ * 행을 모아두지 않으므로 export 건수와 상관없이 버퍼 크기만큼만 메모리를 사용한다.
+ * */
+public abstract class MemberExportWriter implements Consumer<MemberTeamDto>, Closeable {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    public static MemberExportWriter of(Format format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return format == Format.CSV ? new Csv(out) : new Ndjson(out, objectMapper);
+    }
+
+    @Override
+    public void accept(MemberTeamDto dto) {
+        try {
+            write(dto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void write(MemberTeamDto dto) throws IOException;
+
+    static class Ndjson extends MemberExportWriter {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+        private boolean written;
+
+        Ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+            //행마다 flush 하면 행마다 시스템 콜이 발생한다.
+            this.writer = objectMapper.writerFor(MemberTeamDto.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        protected void write(MemberTeamDto dto) throws IOException {
+            writer.writeValue(generator, dto);
+            written = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (written) {
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+    }
+
+    static class Csv extends MemberExportWriter {
+
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write("memberId,username,age,teamId,teamName\n");
+        }
+
+        @Override
+        protected void write(MemberTeamDto dto) throws IOException {
+            writer.write(String.valueOf(dto.getMemberId()));
+            writer.write(',');
+            writer.write(escape(dto.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAge()));
+            writer.write(',');
+            writer.write(dto.getTeamId() != null ? String.valueOf(dto.getTeamId()) : "");
+            writer.write(',');
+            writer.write(escape(dto.getTeamName()));
+            writer.write('\n');
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package querydslstudy.querydslstudy.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkMutationResult {
+
+    private final int chunks;
+    private final long affectedRows;
+    private final long elapsedMillis;
+
+    public BulkMutationResult(int chunks, long affectedRows, long elapsedMillis) {
+        this.chunks = chunks;
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
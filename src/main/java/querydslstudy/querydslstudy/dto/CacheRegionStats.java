@@ -0,0 +1,24 @@
+package querydslstudy.querydslstudy.dto;
+
+import lombok.Getter;
+
+@Getter
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long elementCount;
+    private final double hitRatio;
+
+    public CacheRegionStats(String region, long hitCount, long missCount, long putCount, long elementCount) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCount = elementCount;
+        long requests = hitCount + missCount;
+        this.hitRatio = requests == 0 ? 0 : (double) hitCount / requests;
+    }
+}
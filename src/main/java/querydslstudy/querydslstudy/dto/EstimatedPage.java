@@ -0,0 +1,23 @@
+package querydslstudy.querydslstudy.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/*
+ * approximate 가 true 이면 totalElements 는 정확한 값이 아니라 상한값이다.
+ * */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean approximate;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean approximate) {
+        super(content, pageable, total);
+        this.approximate = approximate;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+}
@@ -0,0 +1,30 @@
+package querydslstudy.querydslstudy.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class IndexAdvice {
+
+    private final String shape;
+    private final long executions;
+    private final String database;
+    private final String method;
+    private final String sql;
+    private final String plan;
+    private final List<String> scannedTables;
+    private final List<String> missingIndexes;
+
+    public IndexAdvice(String shape, long executions, String database, String method, String sql, String plan,
+                       List<String> scannedTables, List<String> missingIndexes) {
+        this.shape = shape;
+        this.executions = executions;
+        this.database = database;
+        this.method = method;
+        this.sql = sql;
+        this.plan = plan;
+        this.scannedTables = scannedTables;
+        this.missingIndexes = missingIndexes;
+    }
+}
@@ -0,0 +1,21 @@
+package querydslstudy.querydslstudy.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberKeysetPage {
+
+    private final List<MemberTeamDto> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public MemberKeysetPage(List<MemberTeamDto> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
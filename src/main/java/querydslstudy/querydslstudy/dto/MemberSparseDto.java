@@ -0,0 +1,20 @@
+package querydslstudy.querydslstudy.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * fields 파라미터로 요청한 필드만 채워진다. 요청하지 않은 필드는 null 이고 응답에서 빠진다.
+ * */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MemberSparseDto {
+
+    private Long memberId;
+    private String username;
+    private Integer age;
+    private Long teamId;
+    private String teamName;
+}
@@ -0,0 +1,44 @@
+package querydslstudy.querydslstudy.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+ * Member, Team 의 변경을 스프링 이벤트로 발행한다.
+ * 스프링 부트는 하이버네이트에 SpringBeanContainer 를 등록하므로
+ * 엔티티 리스너도 생성자 주입을 받을 수 있다.
+ *
+ * 주의: 벌크 연산(update/delete execute())은 영속성 컨텍스트를 거치지 않으므로 이벤트가 발생하지 않는다.
+ * */
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(EntityChangeType.PERSIST, entity);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(EntityChangeType.UPDATE, entity);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(EntityChangeType.REMOVE, entity);
+    }
+
+    private void publish(EntityChangeType type, Object entity) {
+        if (entity instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent(type, (Member) entity));
+        } else if (entity instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent(type, (Team) entity));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package querydslstudy.querydslstudy.entity;
+
+public enum EntityChangeType {
+    PERSIST, UPDATE, REMOVE
+}
@@ -0,0 +1,38 @@
+package querydslstudy.querydslstudy.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+/*
+ * 벌크 update/delete 는 엔티티 리스너를 거치지 않으므로 저장소가 청크마다 직접 발행한다.
+ * 어떤 row 가 바뀌었는지는 모르고, 조건과 id 범위만 알 수 있다.
+ * */
+@Getter
+@ToString
+public class MemberBulkChangedEvent {
+
+    private final EntityChangeType type;
+    private final MemberSearchCondition condition;
+    private final long fromId;
+    private final long toId;
+    private final long affectedRows;
+
+    public MemberBulkChangedEvent(EntityChangeType type, MemberSearchCondition condition,
+                                  long fromId, long toId, long affectedRows) {
+        this.type = type;
+        this.condition = copy(condition);
+        this.fromId = fromId;
+        this.toId = toId;
+        this.affectedRows = affectedRows;
+    }
+
+    private static MemberSearchCondition copy(MemberSearchCondition condition) {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(condition.getUsername());
+        copy.setTeamName(condition.getTeamName());
+        copy.setAgeGoe(condition.getAgeGoe());
+        copy.setAgeLoe(condition.getAgeLoe());
+        return copy;
+    }
+}
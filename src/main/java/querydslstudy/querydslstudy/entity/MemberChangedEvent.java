@@ -0,0 +1,28 @@
+package querydslstudy.querydslstudy.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * 이벤트 시점의 값을 복사해서 들고 다닌다.
+ * 트랜잭션 종료 후에 처리하는 리스너가 엔티티(지연로딩 프록시)를 건드리지 않게 하기 위함
+ * */
+@Getter
+@ToString
+public class MemberChangedEvent {
+
+    private final EntityChangeType type;
+    private final Long memberId;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public MemberChangedEvent(EntityChangeType type, Member member) {
+        this.type = type;
+        this.memberId = member.getId();
+        this.username = member.getUsername();
+        this.age = member.getAge();
+        //프록시의 getId 는 초기화를 일으키지 않는다.
+        this.teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+    }
+}
@@ -0,0 +1,19 @@
+package querydslstudy.querydslstudy.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamChangedEvent {
+
+    private final EntityChangeType type;
+    private final Long teamId;
+    private final String name;
+
+    public TeamChangedEvent(EntityChangeType type, Team team) {
+        this.type = type;
+        this.teamId = team.getId();
+        this.name = team.getName();
+    }
+}
@@ -0,0 +1,28 @@
+package querydslstudy.querydslstudy.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.IndexAdvice;
+
+import java.util.List;
+
+/*
+ * /actuator/indexadvice
+ * 지금까지 실행된 검색조건 모양별 EXPLAIN 결과와 추천 인덱스. 호출할 때마다 모양 수만큼 EXPLAIN 을 실행한다.
+ * 실행된 SQL 과 바인딩 값, 실행 계획이 그대로 보이므로 기본으로 노출하지 않는다.
+ * 필요할 때 management.endpoints.web.exposure.include 에 추가한다(관리 포트/보안 설정을 따른다).
+ * */
+@Component
+@Endpoint(id = "indexadvice")
+@RequiredArgsConstructor
+public class IndexAdviceEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public List<IndexAdvice> indexAdvice() {
+        return indexAdvisor.advise();
+    }
+}
@@ -0,0 +1,161 @@
+package querydslstudy.querydslstudy.index;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.IndexAdvice;
+import querydslstudy.querydslstudy.repository.MemberSearchShape;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * 실행된 검색조건 모양마다 실제로 실행된 SQL(SearchShapeRecorder 의 샘플)을 EXPLAIN 해서 빠진 인덱스를 추천한다.
+ * 샘플은 p6spy 가 바인딩 값을 채운 SQL 이다. EXPLAIN 은 실행 계획만 만들고 쿼리를 실행하지 않는다.
+ * H2 는 plan 의 tableScan 주석, PostgreSQL 은 Seq Scan 노드로 전체 스캔한 테이블을 찾는다.
+ *
+ * 전체 스캔한 테이블에 후보 인덱스(앞쪽 컬럼이 같은 인덱스)가 없을 때만 추천한다.
+ * 인덱스가 있는데도 스캔한다면 left join 순서나 통계 문제이므로 plan 을 보고 판단한다.
+ * 데이터가 적으면 PostgreSQL 은 인덱스가 있어도 Seq Scan 을 고를 수 있다.
+ * */
+@Component
+public class IndexAdvisor {
+
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("\"?(\\w+)\"?\\.tableScan", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PG_SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Candidate MEMBER_USERNAME = new Candidate("member", "idx_member_username", "username");
+    private static final Candidate MEMBER_TEAM_AGE = new Candidate("member", "idx_member_team_age", "team_id", "age");
+    private static final Candidate MEMBER_AGE = new Candidate("member", "idx_member_age", "age", "member_id");
+    private static final Candidate TEAM_NAME = new Candidate("team", "idx_team_name", "name");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchShapeRecorder recorder;
+
+    public IndexAdvisor(JdbcTemplate jdbcTemplate, SearchShapeRecorder recorder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recorder = recorder;
+    }
+
+    public List<IndexAdvice> advise() {
+        return jdbcTemplate.execute((ConnectionCallback<List<IndexAdvice>>) connection -> {
+            String database = connection.getMetaData().getDatabaseProductName();
+            List<IndexAdvice> result = new ArrayList<>();
+            for (MemberSearchShape shape : MemberSearchShape.all()) {
+                long executions = recorder.executions(shape);
+                SearchSql sample = recorder.sample(shape);
+                //결과 캐시에서만 응답해서 SQL 이 실행되지 않은 모양은 EXPLAIN 할 SQL 이 없다.
+                if (executions == 0 || sample == null) {
+                    continue;
+                }
+                String plan = explain(connection, sample.getSql());
+                List<String> scannedTables = scannedTables(plan);
+                List<String> missing = new ArrayList<>();
+                for (Candidate candidate : candidates(shape)) {
+                    if (scannedTables.contains(candidate.table) && !hasIndex(connection, candidate)) {
+                        missing.add(candidate.ddl());
+                    }
+                }
+                result.add(new IndexAdvice(shape.toString(), executions, database, sample.getMethod(), sample.getSql(),
+                        plan, scannedTables, missing));
+            }
+            return result;
+        });
+    }
+
+    /*
+     * 조건 모양별로 가장 좋은 진입 경로가 되는 인덱스
+     * username 이 있으면 그것만으로 충분히 좁혀지고, 팀 조건은 team(name) -> member(team_id, age) 로 찾는다.
+     * */
+    static List<Candidate> candidates(MemberSearchShape shape) {
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            return Collections.singletonList(MEMBER_USERNAME);
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            return Arrays.asList(TEAM_NAME, MEMBER_TEAM_AGE);
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE) || shape.has(MemberSearchShape.AGE_LOE)) {
+            return Collections.singletonList(MEMBER_AGE);
+        }
+        return Collections.emptyList();
+    }
+
+    static List<String> scannedTables(String plan) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (Pattern pattern : new Pattern[]{H2_TABLE_SCAN, PG_SEQ_SCAN}) {
+            Matcher matcher = pattern.matcher(plan);
+            while (matcher.find()) {
+                tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(tables);
+    }
+
+    private String explain(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("explain " + sql)) {
+            StringJoiner plan = new StringJoiner("\n");
+            while (rs.next()) {
+                plan.add(rs.getString(1));
+            }
+            return plan.toString();
+        }
+    }
+
+    private boolean hasIndex(Connection connection, Candidate candidate) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers()
+                ? candidate.table.toUpperCase(Locale.ROOT)
+                : candidate.table;
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name == null || column == null) {
+                    continue;
+                }
+                //ORDINAL_POSITION 순서로 내려온다.
+                indexes.computeIfAbsent(name, key -> new ArrayList<>()).add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+        for (List<String> columns : indexes.values()) {
+            if (columns.size() >= candidate.columns.size()
+                    && columns.subList(0, candidate.columns.size()).equals(candidate.columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static class Candidate {
+        private final String table;
+        private final String name;
+        private final List<String> columns;
+
+        Candidate(String table, String name, String... columns) {
+            this.table = table;
+            this.name = name;
+            this.columns = Arrays.asList(columns);
+        }
+
+        String ddl() {
+            return "create index " + name + " on " + table + " (" + String.join(", ", columns) + ")";
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package querydslstudy.querydslstudy.index;
+
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.repository.MemberSearchShape;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * 실제로 실행된 검색조건 모양(16가지)별 실행 횟수를 센다.
+ * 모양별로 처음 실행된 select 하나(바인딩 값이 들어간 SQL)를 SearchSqlListener 가 샘플로 남기고, IndexAdvisor 가 그대로 EXPLAIN 한다.
+ * 호출 경로에서는 카운터 증가만 하므로 비용이 거의 없다.
+ * */
+@Component
+public class SearchShapeRecorder {
+
+    private final LongAdder[] executions = new LongAdder[16];
+    private final AtomicReferenceArray<SearchSql> samples = new AtomicReferenceArray<>(16);
+
+    public SearchShapeRecorder() {
+        for (int i = 0; i < executions.length; i++) {
+            executions[i] = new LongAdder();
+        }
+    }
+
+    public void record(MemberSearchCondition condition) {
+        executions[MemberSearchShape.of(condition).bits()].increment();
+    }
+
+    public boolean hasSample(MemberSearchShape shape) {
+        return samples.get(shape.bits()) != null;
+    }
+
+    public void recordSample(MemberSearchShape shape, String method, String sql) {
+        samples.compareAndSet(shape.bits(), null, new SearchSql(method, sql));
+    }
+
+    public long executions(MemberSearchShape shape) {
+        return executions[shape.bits()].sum();
+    }
+
+    public SearchSql sample(MemberSearchShape shape) {
+        return samples.get(shape.bits());
+    }
+}
@@ -0,0 +1,18 @@
+package querydslstudy.querydslstudy.index;
+
+import lombok.Getter;
+
+/*
+ * 검색 메서드가 실제로 실행한 select (바인딩 값 포함)
+ * */
+@Getter
+public class SearchSql {
+
+    private final String method;
+    private final String sql;
+
+    public SearchSql(String method, String sql) {
+        this.method = method;
+        this.sql = sql;
+    }
+}
@@ -0,0 +1,36 @@
+package querydslstudy.querydslstudy.index;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.repository.MemberSearchShape;
+import querydslstudy.querydslstudy.support.SearchContext;
+import querydslstudy.querydslstudy.support.SlowQueryRecorder;
+
+import java.sql.SQLException;
+
+/*
+ * 검색 메서드 안에서 처음 실행된 select 를 조건 모양별 샘플로 남긴다(SearchShapeRecorder).
+ * 검색 중인지는 MemberSearchMetrics 가 걸어두는 SearchContext 로 안다.
+ * 모양마다 한 번만 SQL 문자열을 만들고, 이후에는 ThreadLocal 조회와 배열 확인만 한다.
+ * */
+@Component
+@RequiredArgsConstructor
+public class SearchSqlListener extends JdbcEventListener {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+    private final SearchShapeRecorder shapeRecorder;
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SearchContext context = slowQueryRecorder.current();
+        if (e != null || context == null || context.getCondition() == null) {
+            return;
+        }
+        MemberSearchShape shape = MemberSearchShape.of(context.getCondition());
+        if (!shapeRecorder.hasSample(shape)) {
+            shapeRecorder.recordSample(shape, context.getMethod(), statementInformation.getSqlWithValues());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package querydslstudy.querydslstudy.loader;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkLoadResult {
+
+    private final long rows;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public BulkLoadResult(long rows, long elapsedMillis) {
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : rows;
+    }
+}
@@ -0,0 +1,37 @@
+package querydslstudy.querydslstudy.loader;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * --spring.profiles.active=bulk-load --member.bulk-load.count=1000000 처럼 실행하면
+ * 가짜 회원 N 명을 적재하고 초당 row 수를 로그로 남긴다.
+ * */
+@Profile("bulk-load")
+@Component
+@RequiredArgsConstructor
+public class MemberBulkLoadRunner implements CommandLineRunner {
+
+    private final MemberBulkLoader memberBulkLoader;
+
+    @Value("${member.bulk-load.count:100000}")
+    private int count;
+
+    @Value("${member.bulk-load.teams:10}")
+    private int teams;
+
+    @Override
+    public void run(String... args) {
+        List<String> teamNames = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            teamNames.add("team" + i);
+        }
+        memberBulkLoader.load(teamNames, count);
+    }
+}
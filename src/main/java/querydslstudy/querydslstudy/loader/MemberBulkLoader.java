@@ -0,0 +1,79 @@
+package querydslstudy.querydslstudy.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 대량 적재용
+ * batchSize 마다 flush() 로 JDBC batch insert 를 보내고 clear() 로 영속성 컨텍스트를 비운다.
+ * id 는 allocationSize 만큼 시퀀스를 미리 받아오는 pooled 방식이라 row 마다 시퀀스를 호출하지 않는다.
+ *
+ * clear() 이후에는 team 이 준영속이 되므로 getReference() 로 다시 참조만 얻어온다.
+ * 연관관계 편의 메서드(team.getMembers().add())를 쓰면 컬렉션이 로딩되고 계속 커지므로 setTeam() 만 호출한다.
+ * */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final int batchSize;
+
+    public MemberBulkLoader(@Value("${member.bulk-load.batch-size:100}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public BulkLoadResult load(List<String> teamNames, int memberCount) {
+        long start = System.nanoTime();
+        em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        List<Long> teamIds = new ArrayList<>();
+        for (String teamName : teamNames) {
+            Team team = new Team(teamName);
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        em.flush();
+        em.clear();
+
+        List<Team> teams = references(teamIds);
+        for (int i = 0; i < memberCount; i++) {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teams.get(i % teams.size()));
+            em.persist(member);
+
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+                teams = references(teamIds);
+            }
+        }
+        em.flush();
+        em.clear();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        BulkLoadResult result = new BulkLoadResult(teamNames.size() + memberCount, elapsedMillis);
+        log.info("bulk load finished. {}", result);
+        return result;
+    }
+
+    private List<Team> references(List<Long> teamIds) {
+        List<Team> teams = new ArrayList<>(teamIds.size());
+        for (Long teamId : teamIds) {
+            teams.add(em.getReference(Team.class, teamId));
+        }
+        return teams;
+    }
+}
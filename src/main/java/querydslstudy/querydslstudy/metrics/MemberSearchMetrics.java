@@ -0,0 +1,170 @@
+package querydslstudy.querydslstudy.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.BulkMutationResult;
+import querydslstudy.querydslstudy.dto.MemberKeysetPage;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.repository.MemberSearchShape;
+import querydslstudy.querydslstudy.support.QueryCountScope;
+import querydslstudy.querydslstudy.support.QueryCounter;
+import querydslstudy.querydslstudy.support.SearchContext;
+import querydslstudy.querydslstudy.support.SlowQueryRecorder;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 검색 메서드별, 검색조건 모양별 응답시간, 반환 row 수, 실행한 SQL 수(member.search.statements)
+ * MemberSearchCondition 을 첫 인자로 받는 MemberRepositoryImpl, MemberJpaRepository 의 메서드가 대상이다.
+ *
+ * 태그 조합(메서드 x 모양 16가지)마다 미터를 한번만 만들어 배열에 담아두므로
+ * 호출 경로에서는 레지스트리 조회 없이 배열 접근과 기록만 한다.
+ * 백분위수는 클라이언트에서 계산해서 /actuator/metrics/member.search.percentile 로 보인다.
+ *
+ * 실행하는 동안 SlowQueryRecorder 에 메서드와 조건을 걸어두어 느린 SQL 의 출처로 남긴다.
+ * SQL 수는 p6spy(QueryCountListener)가 QueryCounter 의 쓰레드별 scope 에 세는 값이라 hibernate.generate_statistics 가 필요없다.
+ * 다른 쓰레드에서 실행되는 SQL(searchPageParallel 의 count)은 포함되지 않는다.
+ * */
+@Aspect
+@Component
+public class MemberSearchMetrics {
+
+    private final MeterRegistry registry;
+    private final SlowQueryRecorder slowQueryRecorder;
+    private final QueryCounter queryCounter;
+    private final ConcurrentMap<String, Meters[]> meters = new ConcurrentHashMap<>();
+    private final Counter countExecuted;
+    private final Counter countCached;
+    private final Counter countSkipped;
+    private final Counter countEstimated;
+    private final Counter countWindowed;
+
+    public MemberSearchMetrics(MeterRegistry registry, SlowQueryRecorder slowQueryRecorder, QueryCounter queryCounter) {
+        this.registry = registry;
+        this.slowQueryRecorder = slowQueryRecorder;
+        this.queryCounter = queryCounter;
+        this.countExecuted = countCounter(registry, "executed");
+        this.countCached = countCounter(registry, "cached");
+        this.countSkipped = countCounter(registry, "skipped");
+        this.countEstimated = countCounter(registry, "estimated");
+        this.countWindowed = countCounter(registry, "windowed");
+    }
+
+    @Around("(within(querydslstudy.querydslstudy.repository.MemberRepositoryImpl)"
+            + " || within(querydslstudy.querydslstudy.repository.MemberJpaRepository))"
+            + " && execution(public * *(..)) && args(condition, ..)")
+    public Object record(ProceedingJoinPoint joinPoint, MemberSearchCondition condition) throws Throwable {
+        Meters methodMeters = meters(joinPoint, MemberSearchShape.of(condition));
+        SearchContext previous = slowQueryRecorder.enter(methodMeters.name, condition);
+        QueryCountScope statements = queryCounter.start();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                methodMeters.rows.record(rows);
+            }
+            return result;
+        } finally {
+            //timeout 등으로 실패한 호출도 응답시간에 포함한다.
+            methodMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(statements.getCount());
+            statements.close();
+            slowQueryRecorder.exit(previous);
+        }
+    }
+
+    public void countExecuted() {
+        countExecuted.increment();
+    }
+
+    public void countCached() {
+        countCached.increment();
+    }
+
+    public void countSkipped() {
+        countSkipped.increment();
+    }
+
+    public void countEstimated() {
+        countEstimated.increment();
+    }
+
+    public void countWindowed() {
+        countWindowed.increment();
+    }
+
+    private Meters meters(ProceedingJoinPoint joinPoint, MemberSearchShape shape) {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Meters[] byShape = meters.computeIfAbsent(repository + "." + method, key -> new Meters[16]);
+        Meters found = byShape[shape.bits()];
+        if (found == null) {
+            //같은 미터를 두번 만들어도 레지스트리가 같은 인스턴스를 돌려준다.
+            found = new Meters(registry, repository, method, shape);
+            byShape[shape.bits()] = found;
+        }
+        return found;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberKeysetPage) {
+            return ((MemberKeysetPage) result).getContent().size();
+        }
+        if (result instanceof BulkMutationResult) {
+            return ((BulkMutationResult) result).getAffectedRows();
+        }
+        return -1;
+    }
+
+    private static Counter countCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("member.search.count")
+                .description("페이징 count 쿼리 실행/캐시/생략/추정/윈도우 함수 횟수")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static class Meters {
+        private final String name;
+        private final Timer timer;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+
+        Meters(MeterRegistry registry, String repository, String method, MemberSearchShape shape) {
+            this.name = repository + "." + method;
+            this.timer = Timer.builder("member.search")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("shape", shape.toString())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+            this.rows = DistributionSummary.builder("member.search.rows")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("shape", shape.toString())
+                    .register(registry);
+            this.statements = DistributionSummary.builder("member.search.statements")
+                    .description("호출 한 번에 실행한 SQL 수 (호출한 쓰레드 기준)")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("shape", shape.toString())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package querydslstudy.querydslstudy.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.repository.MemberSearchTemplates;
+
+import javax.persistence.EntityManagerFactory;
+
+/*
+ * MemberSearchTemplates 가 세고 있는 모양별 호출 수와 하이버네이트 QueryPlanCache hit/miss 를 보여준다.
+ * 플랜 캐시 값은 템플릿 검색만이 아니라 전체 쿼리 기준이고, hibernate.generate_statistics=true 일 때만 등록한다.
+ * 값은 스크랩할 때만 읽으므로 호출 경로에 추가 비용이 없다.
+ * */
+@Component
+public class SearchTemplateMetrics implements MeterBinder {
+
+    private final MemberSearchTemplates searchTemplates;
+    private final Statistics statistics;
+
+    public SearchTemplateMetrics(MemberSearchTemplates searchTemplates, EntityManagerFactory emf) {
+        this.searchTemplates = searchTemplates;
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MemberSearchTemplates.Template template : searchTemplates.getTemplates().values()) {
+            FunctionCounter.builder("member.search.template.invocations", template, MemberSearchTemplates.Template::getInvocations)
+                    .tag("shape", template.getShape().toString())
+                    .register(registry);
+        }
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
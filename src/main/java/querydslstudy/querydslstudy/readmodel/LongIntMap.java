@@ -0,0 +1,89 @@
+package querydslstudy.querydslstudy.readmodel;
+
+/*
+ * id -> slot 매핑. HashMap<Long, Integer> 는 엔트리마다 Node, Long, Integer 객체가 생기므로
+ * long[], int[] 두 배열에 open addressing(linear probing)으로 담는다.
+ *
+ * 키 0 은 빈 칸 표시로 쓰므로 넣을 수 없다(시퀀스 id 는 1 부터).
+ * 삭제는 지원하지 않는다. 삭제된 회원의 slot 은 그대로 두고 MemberColumns 에서 live 비트로 구분한다.
+ * */
+final class LongIntMap {
+
+    static final int ABSENT = -1;
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return ABSENT;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimatedBytes() {
+        return keys.length * (long) (Long.BYTES + Integer.BYTES);
+    }
+
+    private void resize() {
+        long[] newKeys = new long[keys.length * 2];
+        int[] newValues = new int[values.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static boolean insert(long[] keys, int[] values, long key, int value) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return false;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
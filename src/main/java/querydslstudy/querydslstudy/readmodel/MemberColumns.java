@@ -0,0 +1,269 @@
+package querydslstudy.querydslstudy.readmodel;
+
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+ * Member/Team 을 컬럼(기본형 배열) 단위로 담아둔 검색용 저장소. 쓰레드 안전하지 않다(MemberReadModel 이 락을 잡는다).
+ *
+ * 회원 한 명 = slot 하나. slot 은 적재 순서(id 순)대로 붙고 삭제해도 재사용하지 않는다(live 비트만 끈다).
+ * 회원명 사전도 이름이 바뀌거나 회원이 삭제되어 아무도 쓰지 않는 코드를 지우지 않는다.
+ * 이렇게 죽은 slot 과 사전 코드가 live row 의 절반(최소 MIN_DEAD_ENTRIES)을 넘으면 needsCompaction() 이 true 가 되고,
+ * MemberReadModel 이 compact() 로 live row 만 담은 새 컬럼으로 바꾼다.
+ * - ids(long[]), ages(int[])
+ * - usernames(int[]): 회원명 사전의 코드
+ * - teams(int[]): 팀 slot, 팀 없으면 NO_TEAM. 팀 이름은 팀 slot 별로 한 번만 들고 있다.
+ * - ageIndex: 나이 순으로 정렬된 나이별 회원 slot 비트맵, 나이 범위는 subMap 으로 찾아서 OR 한다.
+ *   나이 종류는 많지 않으므로 버킷 수가 작고, 추가/삭제는 비트 하나만 바꾸면 된다(정렬 배열처럼 밀어내지 않는다).
+ * - teamMembers: 팀 slot 별 회원 slot 비트맵
+ * */
+final class MemberColumns {
+
+    static final int NO_TEAM = -1;
+    static final int MIN_DEAD_ENTRIES = 1_000;
+
+    private long[] ids;
+    private int[] ages;
+    private int[] usernames;
+    private int[] teams;
+    private int size;
+    private int liveCount;
+    private final BitSet live = new BitSet();
+    private final LongIntMap slots;
+
+    private final Map<String, Integer> usernameCodes = new HashMap<>();
+    private final List<String> usernameValues = new ArrayList<>();
+    private int[] usernameRefs = new int[16];
+    private int deadUsernames;
+
+    private final Map<Long, Integer> teamSlots = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private final List<BitSet> teamMembers = new ArrayList<>();
+
+    private final NavigableMap<Integer, BitSet> ageIndex = new TreeMap<>();
+
+    MemberColumns(int expectedMembers) {
+        int capacity = Math.max(16, expectedMembers);
+        this.ids = new long[capacity];
+        this.ages = new int[capacity];
+        this.usernames = new int[capacity];
+        this.teams = new int[capacity];
+        this.slots = new LongIntMap(capacity);
+    }
+
+    void upsertTeam(long teamId, String name) {
+        teamNames.set(teamSlot(teamId), name);
+    }
+
+    /*
+     * 팀은 지우지 않고 이름만 비운다. 그 팀을 가리키는 회원은 팀 조건에 걸리지 않게 된다.
+     * */
+    void removeTeam(long teamId) {
+        Integer slot = teamSlots.get(teamId);
+        if (slot != null) {
+            teamNames.set(slot, null);
+        }
+    }
+
+    void upsertMember(long id, String username, int age, Long teamId) {
+        int slot = slots.get(id);
+        if (slot == LongIntMap.ABSENT) {
+            slot = append(id);
+        } else if (live.get(slot)) {
+            detach(slot);
+        }
+        ages[slot] = age;
+        usernames[slot] = usernameCode(username);
+        teams[slot] = teamId != null ? teamSlot(teamId) : NO_TEAM;
+        attach(slot);
+    }
+
+    void removeMember(long id) {
+        int slot = slots.get(id);
+        if (slot != LongIntMap.ABSENT && live.get(slot)) {
+            detach(slot);
+        }
+    }
+
+    /*
+     * 가장 좁힐 수 있는 조건으로 후보 비트맵을 만들고 나머지 조건은 컬럼 값을 직접 비교한다.
+     * 팀 조건 -> 팀 비트맵 OR, 나이 조건 -> 나이 인덱스 범위, 둘 다 없으면 live 전체
+     * 결과는 slot(= id) 순이다.
+     * */
+    List<MemberTeamDto> search(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        int usernameCode = -1;
+        if (username != null) {
+            Integer code = usernameCodes.get(username);
+            if (code == null) {
+                return new ArrayList<>();
+            }
+            usernameCode = code;
+        }
+
+        BitSet candidates;
+        boolean ageFiltered = false;
+        if (teamName != null) {
+            candidates = new BitSet(size);
+            for (int team = 0; team < teamNames.size(); team++) {
+                if (teamName.equals(teamNames.get(team))) {
+                    candidates.or(teamMembers.get(team));
+                }
+            }
+        } else if (ageGoe != null || ageLoe != null) {
+            candidates = new BitSet(size);
+            for (BitSet members : ageRange(ageGoe, ageLoe).values()) {
+                candidates.or(members);
+            }
+            ageFiltered = true;
+        } else {
+            candidates = live;
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (username != null && usernames[slot] != usernameCode) {
+                continue;
+            }
+            if (!ageFiltered && ((ageGoe != null && ages[slot] < ageGoe) || (ageLoe != null && ages[slot] > ageLoe))) {
+                continue;
+            }
+            result.add(row(slot));
+        }
+        return result;
+    }
+
+    int rows() {
+        return liveCount;
+    }
+
+    boolean needsCompaction() {
+        int dead = (size - liveCount) + deadUsernames;
+        return dead >= MIN_DEAD_ENTRIES && dead > liveCount / 2;
+    }
+
+    /*
+     * live row 만 slot(= id) 순서대로 옮긴 새 컬럼. 팀은 회원이 없어도 이름과 함께 옮긴다.
+     * */
+    MemberColumns compact() {
+        MemberColumns compacted = new MemberColumns(liveCount);
+        for (int team = 0; team < teamIds.size(); team++) {
+            compacted.upsertTeam(teamIds.get(team), teamNames.get(team));
+        }
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            int team = teams[slot];
+            compacted.upsertMember(ids[slot], usernameValues.get(usernames[slot]), ages[slot],
+                    team != NO_TEAM ? teamIds.get(team) : null);
+        }
+        return compacted;
+    }
+
+    /*
+     * 배열과 비트맵, 사전 크기로 계산한 대략적인 힙 사용량 (객체 헤더, HashMap 엔트리는 어림값)
+     * */
+    long estimatedBytes() {
+        long bytes = ids.length * (long) (Long.BYTES + Integer.BYTES * 3);
+        for (BitSet members : ageIndex.values()) {
+            bytes += members.size() / 8 + 64;
+        }
+        bytes += live.size() / 8 + slots.estimatedBytes() + usernameRefs.length * (long) Integer.BYTES;
+        for (String username : usernameValues) {
+            bytes += 40 + (username != null ? username.length() * 2L : 0) + 48;
+        }
+        for (BitSet members : teamMembers) {
+            bytes += members.size() / 8 + 64;
+        }
+        return bytes;
+    }
+
+    private MemberTeamDto row(int slot) {
+        int team = teams[slot];
+        return new MemberTeamDto(ids[slot], usernameValues.get(usernames[slot]), ages[slot],
+                team != NO_TEAM ? teamIds.get(team) : null,
+                team != NO_TEAM ? teamNames.get(team) : null);
+    }
+
+    private int append(long id) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            teams = Arrays.copyOf(teams, capacity);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private void attach(int slot) {
+        live.set(slot);
+        liveCount++;
+        if (usernameRefs[usernames[slot]]++ == 0) {
+            deadUsernames--;
+        }
+        if (teams[slot] != NO_TEAM) {
+            teamMembers.get(teams[slot]).set(slot);
+        }
+        ageIndex.computeIfAbsent(ages[slot], age -> new BitSet()).set(slot);
+    }
+
+    private void detach(int slot) {
+        live.clear(slot);
+        liveCount--;
+        if (--usernameRefs[usernames[slot]] == 0) {
+            deadUsernames++;
+        }
+        if (teams[slot] != NO_TEAM) {
+            teamMembers.get(teams[slot]).clear(slot);
+        }
+        BitSet members = ageIndex.get(ages[slot]);
+        members.clear(slot);
+        if (members.isEmpty()) {
+            ageIndex.remove(ages[slot]);
+        }
+    }
+
+    private NavigableMap<Integer, BitSet> ageRange(Integer ageGoe, Integer ageLoe) {
+        if (ageGoe != null && ageLoe != null) {
+            return ageGoe > ageLoe ? new TreeMap<>() : ageIndex.subMap(ageGoe, true, ageLoe, true);
+        }
+        return ageGoe != null ? ageIndex.tailMap(ageGoe, true) : ageIndex.headMap(ageLoe, true);
+    }
+
+    private int usernameCode(String username) {
+        Integer code = usernameCodes.get(username);
+        if (code == null) {
+            code = usernameValues.size();
+            usernameValues.add(username);
+            usernameCodes.put(username, code);
+            if (code == usernameRefs.length) {
+                usernameRefs = Arrays.copyOf(usernameRefs, code * 2);
+            }
+            //attach 에서 참조가 생기기 전까지는 죽은 코드로 센다.
+            deadUsernames++;
+        }
+        return code;
+    }
+
+    private int teamSlot(long teamId) {
+        Integer slot = teamSlots.get(teamId);
+        if (slot == null) {
+            slot = teamIds.size();
+            teamIds.add(teamId);
+            teamNames.add(null);
+            teamMembers.add(new BitSet());
+            teamSlots.put(teamId, slot);
+        }
+        return slot;
+    }
+}
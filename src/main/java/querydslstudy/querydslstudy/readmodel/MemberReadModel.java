@@ -0,0 +1,286 @@
+package querydslstudy.querydslstudy.readmodel;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.EntityChangeType;
+import querydslstudy.querydslstudy.entity.MemberBulkChangedEvent;
+import querydslstudy.querydslstudy.entity.MemberChangedEvent;
+import querydslstudy.querydslstudy.entity.TeamChangedEvent;
+import querydslstudy.querydslstudy.repository.MemberPredicate;
+import querydslstudy.querydslstudy.repository.MemberPredicateCompiler;
+import querydslstudy.querydslstudy.support.TransactionEventBuffer;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+import static querydslstudy.querydslstudy.entity.QTeam.team;
+
+/*
+ * DB 를 거치지 않는 회원 검색(/v1/members). member.read-model.enabled=true 일 때만 등록된다.
+ * Member/Team 전체를 MemberColumns 에 올려두고 MemberSearchCondition 을 메모리에서 평가한다.
+ *
+ * 일관성
+ * - 시작 시(ApplicationReadyEvent) 전체를 적재한다. 적재가 끝나기 전에는 search() 가 empty 를 반환하고 호출한 쪽이 DB 로 조회한다.
+ * - Member/Team 변경은 엔티티 리스너 이벤트를 트랜잭션별로 모아서 커밋 후에 한 번에(쓰기 락 한 번) 반영한다. 롤백된 변경은 반영되지 않는다.
+ *   한 트랜잭션의 변경이 MAX_BUFFERED_EVENTS 를 넘으면(대량 적재) 모아두지 않고 다시 적재한다.
+ * - 벌크 update/delete 는 어떤 row 가 바뀌었는지 모르므로 다시 적재한다. 그동안은 DB 로 조회한다.
+ *   다시 적재하는 도중에 들어온 변경은 모아두었다가 새 컬럼에 한 번 더 반영한다(반영은 id 기준 upsert 라 중복돼도 같다).
+ * - 변경을 반영하다 삭제된 slot 과 쓰지 않는 회원명이 쌓이면(MemberColumns.needsCompaction) live row 만 남긴 컬럼으로 바꾼다.
+ *   DB 를 다시 읽지 않고 쓰기 락 안에서 메모리끼리 복사한다.
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.read-model.enabled", havingValue = "true")
+public class MemberReadModel {
+
+    static final int MAX_BUFFERED_EVENTS = 10_000;
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberPredicateCompiler predicates;
+    private final TransactionTemplate loadTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final TransactionEventBuffer<Object> pendingChanges =
+            new TransactionEventBuffer<>(MAX_BUFFERED_EVENTS, this::afterCompletion);
+    private final Counter hits;
+    private final Counter misses;
+
+    private MemberColumns columns = new MemberColumns(0);
+    private List<Object> replay;
+    private volatile boolean ready;
+
+    public MemberReadModel(EntityManager em, MemberPredicateCompiler predicates,
+                           PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.predicates = predicates;
+        //읽기 전용으로 열면 replica 로 라우팅될 수 있다. 뒤처진 replica 에서 적재하면 그 사이 커밋이 빠지므로 primary 에서 읽는다.
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-read-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hits = searchCounter(registry, "hit");
+        this.misses = searchCounter(registry, "miss");
+        Gauge.builder("member.read-model.rows", this, MemberReadModel::rows)
+                .description("읽기 모델에 올라와있는 회원 수")
+                .register(registry);
+        Gauge.builder("member.read-model.bytes", this, MemberReadModel::estimatedBytes)
+                .description("읽기 모델 컬럼의 대략적인 힙 사용량")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /*
+     * 적재 중이거나 벌크 변경 후 다시 적재하는 중이면 empty (DB 로 조회해야 한다)
+     * */
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        MemberPredicate predicate = predicates.compile(condition);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(columns.search(predicate.getUsername(), predicate.getTeamName(),
+                    predicate.getAgeGoe(), predicate.getAgeLoe()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        pendingChanges.add(event);
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        pendingChanges.add(event);
+    }
+
+    @EventListener
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        pendingChanges.add(event);
+    }
+
+    /*
+     * 여러 번 요청돼도(청크마다 발행되는 벌크 이벤트) 대기 중인 적재는 하나뿐이다.
+     * */
+    public void requestRebuild() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    private void rebuild() {
+        //여기서부터 들어오는 요청은 적재를 한 번 더 예약한다.
+        rebuildPending.set(false);
+        lock.writeLock().lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        MemberColumns loaded;
+        try {
+            loaded = loadTransaction.execute(status -> load());
+        } catch (RuntimeException e) {
+            log.warn("failed to load member read model, searches fall back to the database", e);
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object event : replay) {
+                apply(loaded, event);
+            }
+            replay = null;
+            columns = loaded;
+            ready = !rebuildPending.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member read model loaded. rows={}, estimatedBytes={}", loaded.rows(), loaded.estimatedBytes());
+    }
+
+    private MemberColumns load() {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch();
+        //member.team.id 는 FK 컬럼이라 조인하지 않는다.
+        List<Tuple> members = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        MemberColumns loaded = new MemberColumns(members.size());
+        for (Tuple row : teams) {
+            loaded.upsertTeam(row.get(team.id), row.get(team.name));
+        }
+        for (Tuple row : members) {
+            loaded.upsertMember(row.get(member.id), row.get(member.username), row.get(member.age),
+                    row.get(member.team.id));
+        }
+        return loaded;
+    }
+
+    private void afterCompletion(List<Object> events, boolean overflow, boolean committed) {
+        if (!committed) {
+            return;
+        }
+        if (overflow || events.stream().anyMatch(MemberBulkChangedEvent.class::isInstance)) {
+            requestRebuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Object event : events) {
+                apply(columns, event);
+            }
+            if (columns.needsCompaction()) {
+                columns = columns.compact();
+            }
+            if (replay != null) {
+                replay.addAll(events);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(MemberColumns target, Object event) {
+        if (event instanceof MemberChangedEvent) {
+            MemberChangedEvent changed = (MemberChangedEvent) event;
+            if (changed.getType() == EntityChangeType.REMOVE) {
+                target.removeMember(changed.getMemberId());
+            } else {
+                target.upsertMember(changed.getMemberId(), changed.getUsername(), changed.getAge(), changed.getTeamId());
+            }
+        } else if (event instanceof TeamChangedEvent) {
+            TeamChangedEvent changed = (TeamChangedEvent) event;
+            if (changed.getType() == EntityChangeType.REMOVE) {
+                target.removeTeam(changed.getTeamId());
+            } else {
+                target.upsertTeam(changed.getTeamId(), changed.getName());
+            }
+        }
+    }
+
+    private double rows() {
+        lock.readLock().lock();
+        try {
+            return columns.rows();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return columns.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Counter searchCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("member.read-model.search")
+                .description("읽기 모델로 처리한(hit) / DB 로 넘긴(miss) 검색 수")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
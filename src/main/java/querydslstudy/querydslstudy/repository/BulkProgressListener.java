@@ -0,0 +1,15 @@
+package querydslstudy.querydslstudy.repository;
+
+/*
+ * 청크 단위 벌크 연산의 진행상황을 받는다.
+ * 청크 하나가 끝날 때마다(커밋 직전) 호출된다.
+ * chunks 는 최대 청크 수다. 조건에 맞는 row 가 없는 id 구간은 건너뛰므로 마지막 chunk 가 chunks 보다 작을 수 있다.
+ * */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (chunk, chunks, affectedRows, totalAffectedRows) -> {
+    };
+
+    void onChunk(int chunk, int chunks, long affectedRows, long totalAffectedRows);
+}
@@ -0,0 +1,12 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String cursor) {
+        super("invalid member cursor: " + cursor);
+    }
+}
@@ -0,0 +1,12 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFieldsException extends IllegalArgumentException {
+
+    public InvalidFieldsException(String fields) {
+        super("invalid member fields: " + fields);
+    }
+}
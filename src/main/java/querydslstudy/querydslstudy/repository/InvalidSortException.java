@@ -0,0 +1,16 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/*
+ * 리포지토리 안에서 던지므로 IllegalArgumentException 을 상속하지 않는다.
+ * (상속하면 리포지토리 예외 변환에서 InvalidDataAccessApiUsageException 으로 바뀌어 500 이 된다)
+ * */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String property, String reason) {
+        super("invalid member sort '" + property + "': " + reason);
+    }
+}
@@ -0,0 +1,18 @@
+package querydslstudy.querydslstudy.repository;
+
+/*
+ * 조회한 Member 에서 호출하는 쪽이 사용할 연관관계
+ * 선언한 연관관계만 미리 로딩해서 N+1 을 막는다.
+ * */
+public enum MemberAssociation {
+
+    /*
+     * member.team (to-one) -> fetch join
+     * */
+    TEAM,
+
+    /*
+     * member.team.members (to-many) -> fetch join 하면 row 가 늘어나므로 @BatchSize 로 IN 절 배치 로딩
+     * */
+    TEAM_MEMBERS
+}
@@ -0,0 +1,57 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+
+/*
+ * 벌크 update 에서 바꿀 값. Querydsl 의 update 절은 저장소 안에서만 만든다.
+ * 나이는 값으로 바꾸거나(setAge) 현재 값에 더할 수 있다(addAge). 둘 중 나중에 지정한 것만 쓴다.
+ * */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberBulkUpdate {
+
+    private final String username;
+    private final Integer age;
+    private final Integer ageDelta;
+
+    public static MemberBulkUpdate setUsername(String username) {
+        return new MemberBulkUpdate(null, null, null).username(username);
+    }
+
+    public static MemberBulkUpdate setAge(int age) {
+        return new MemberBulkUpdate(null, null, null).age(age);
+    }
+
+    public static MemberBulkUpdate addAge(int delta) {
+        return new MemberBulkUpdate(null, null, null).ageDelta(delta);
+    }
+
+    public MemberBulkUpdate username(String username) {
+        return new MemberBulkUpdate(username, age, ageDelta);
+    }
+
+    public MemberBulkUpdate age(int age) {
+        return new MemberBulkUpdate(username, age, null);
+    }
+
+    public MemberBulkUpdate ageDelta(int delta) {
+        return new MemberBulkUpdate(username, null, delta);
+    }
+
+    void applyTo(JPAUpdateClause update) {
+        if (username != null) {
+            update.set(member.username, username);
+        }
+        if (age != null) {
+            update.set(member.age, age);
+        }
+        if (ageDelta != null) {
+            update.set(member.age, member.age.add(ageDelta));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package querydslstudy.querydslstudy.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.entity.MemberBulkChangedEvent;
+import querydslstudy.querydslstudy.entity.MemberChangedEvent;
+import querydslstudy.querydslstudy.entity.TeamChangedEvent;
+import querydslstudy.querydslstudy.metrics.MemberSearchMetrics;
+import querydslstudy.querydslstudy.support.TransactionEventBuffer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * 검색조건별 전체 count 캐시
+ * count 쿼리가 컨텐츠 쿼리보다 비싼 경우가 많아서 TTL 동안 재사용한다.
+ * 키는 MemberPredicateCompiler 가 정규화한 key 다.
+ *
+ * Member/Team 이 변경되면 즉시 한번, 트랜잭션이 끝난 후(커밋/롤백) 한번 더 비운다.
+ * 트랜잭션 도중 다른 쓰레드가 채워넣은 커밋 전 값까지 지우기 위해서다.
+ * 트랜잭션이 끝난 후 비우는 건 트랜잭션당 한 번이다(대량 적재에서 이벤트마다 콜백이 쌓이지 않도록 이벤트는 모으지 않는다).
+ * */
+@Component
+public class MemberCountCache {
+
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final TransactionEventBuffer<Object> pendingInvalidations =
+            new TransactionEventBuffer<>(0, (events, overflow, committed) -> invalidateAll());
+    private final MemberPredicateCompiler predicates;
+    private final MemberSearchMetrics metrics;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public MemberCountCache(MemberPredicateCompiler predicates, MemberSearchMetrics metrics,
+                            @Value("${member.search.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.search.count-cache.max-size:10000}") int maxSize) {
+        this.predicates = predicates;
+        this.metrics = metrics;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public long getOrCount(MemberSearchCondition condition, LongSupplier countQuery) {
+        String key = predicates.compile(condition).getKey();
+        OptionalLong cached = find(key);
+        if (cached.isPresent()) {
+            metrics.countCached();
+            return cached.getAsLong();
+        }
+
+        long startGeneration = generation.get();
+        long count = countQuery.getAsLong();
+        metrics.countExecuted();
+        //count 도중 무효화가 일어났다면 오래된 값일 수 있으므로 저장하지 않는다.
+        if (ttlNanos > 0 && startGeneration == generation.get()) {
+            if (counts.size() >= maxSize) {
+                counts.clear();
+            }
+            counts.put(key, new Entry(count, System.nanoTime() + ttlNanos));
+        }
+        return count;
+    }
+
+    public OptionalLong find(MemberSearchCondition condition) {
+        return find(predicates.compile(condition).getKey());
+    }
+
+    private OptionalLong find(String key) {
+        Entry entry = counts.get(key);
+        if (entry == null) {
+            return OptionalLong.empty();
+        }
+        if (entry.expiresAt - System.nanoTime() < 0) {
+            counts.remove(key, entry);
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(entry.count);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        invalidateAll();
+        pendingInvalidations.add(event);
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        invalidateAll();
+        pendingInvalidations.add(event);
+    }
+
+    @EventListener
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        invalidateAll();
+        pendingInvalidations.add(event);
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final long count;
+        private final long expiresAt;
+    }
+}
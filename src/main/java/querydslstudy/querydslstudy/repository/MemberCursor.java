@@ -0,0 +1,80 @@
+package querydslstudy.querydslstudy.repository;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * 키셋(seek) 페이징용 커서
+ * 마지막으로 읽은 (정렬키, member_id) 를 담아서 다음 페이지를 offset 없이 이어서 조회한다.
+ * 클라이언트에게는 Base64 로 인코딩된 불투명한 문자열로만 노출한다.
+ * */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    public enum Sort {
+        ID, USERNAME, AGE
+    }
+
+    private static final String DELIMITER = "|";
+
+    private final Sort sort;
+    private final Long lastId;
+    private final String lastValue;
+
+    public static MemberCursor first(Sort sort) {
+        return new MemberCursor(sort, null, null);
+    }
+
+    public static MemberCursor after(Sort sort, MemberTeamDto last) {
+        String value;
+        switch (sort) {
+            case USERNAME:
+                value = last.getUsername();
+                break;
+            case AGE:
+                value = String.valueOf(last.getAge());
+                break;
+            default:
+                value = String.valueOf(last.getMemberId());
+        }
+        return new MemberCursor(sort, last.getMemberId(), value);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public int lastAge() {
+        return Integer.parseInt(lastValue);
+    }
+
+    public String encode() {
+        String raw = sort.name() + DELIMITER + lastId + DELIMITER + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            //username 에 구분자가 들어있을 수 있으므로 값은 항상 마지막에 둔다.
+            String[] parts = raw.split("\\" + DELIMITER, 3);
+            if (parts.length != 3) {
+                throw new InvalidCursorException(cursor);
+            }
+            Sort sort = Sort.valueOf(parts[0]);
+            MemberCursor decoded = new MemberCursor(sort, Long.valueOf(parts[1]), parts[2]);
+            if (sort == Sort.AGE) {
+                decoded.lastAge();
+            }
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.core.types.Expression;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+import static querydslstudy.querydslstudy.entity.QTeam.team;
+
+/*
+ * 검색 결과에서 골라서 조회할 수 있는 필드
+ * teamId 는 member 의 FK 컬럼(member.team.id)이라 team 조인이 필요없다. teamName 만 조인이 필요하다.
+ * */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, false, (dto, value) -> dto.setMemberId((Long) value)),
+    USERNAME("username", member.username, false, (dto, value) -> dto.setUsername((String) value)),
+    AGE("age", member.age, false, (dto, value) -> dto.setAge((Integer) value)),
+    TEAM_ID("teamId", member.team.id, false, (dto, value) -> dto.setTeamId((Long) value)),
+    TEAM_NAME("teamName", team.name, true, (dto, value) -> dto.setTeamName((String) value));
+
+    private final String property;
+    private final Expression<?> expression;
+    private final boolean requiresTeamJoin;
+    private final BiConsumer<MemberSparseDto, Object> setter;
+
+    MemberField(String property, Expression<?> expression, boolean requiresTeamJoin,
+                BiConsumer<MemberSparseDto, Object> setter) {
+        this.property = property;
+        this.expression = expression;
+        this.requiresTeamJoin = requiresTeamJoin;
+        this.setter = setter;
+    }
+
+    /*
+     * "memberId,username" 처럼 콤마로 구분한 DTO 프로퍼티 이름
+     * */
+    public static Set<MemberField> parse(String fields) {
+        Set<MemberField> result = EnumSet.noneOf(MemberField.class);
+        if (fields != null) {
+            for (String name : fields.split(",")) {
+                result.add(of(name.trim(), fields));
+            }
+        }
+        if (result.isEmpty()) {
+            throw new InvalidFieldsException(fields);
+        }
+        return result;
+    }
+
+    private static MemberField of(String property, String fields) {
+        for (MemberField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new InvalidFieldsException(fields);
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    Expression<?> getExpression() {
+        return expression;
+    }
+
+    boolean requiresTeamJoin() {
+        return requiresTeamJoin;
+    }
+
+    void set(MemberSparseDto dto, Object value) {
+        setter.accept(dto, value);
+    }
+}
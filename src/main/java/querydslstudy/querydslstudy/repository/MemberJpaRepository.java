@@ -2,10 +2,17 @@ package querydslstudy.querydslstudy.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQueryFactory;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import querydslstudy.querydslstudy.dto.*;
 import querydslstudy.querydslstudy.entity.Member;
@@ -13,15 +20,24 @@ import querydslstudy.querydslstudy.entity.QMember;
 import querydslstudy.querydslstudy.entity.QTeam;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.springframework.util.StringUtils.*;
 import static querydslstudy.querydslstudy.entity.QMember.member;
 import static querydslstudy.querydslstudy.entity.QTeam.team;
 
+/*
+ * 조회 메서드는 기본으로 읽기 전용 트랜잭션에서 실행한다.
+ * 하이버네이트 세션이 FlushMode.MANUAL, defaultReadOnly 가 되어 flush 와 dirty checking 스냅샷을 생략한다.
+ * 이미 쓰기 트랜잭션 안에서 호출되면 그 트랜잭션에 참여하므로 동작이 바뀌지 않는다.
+ * */
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     /*
@@ -35,12 +51,15 @@ public class MemberJpaRepository {
      * */
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicateCompiler predicates;
+    private final MemberSearchResultCache resultCache;
 /*
     public MemberJpaRepository(EntityManager em , JPAQueryFactory jpaQueryFactory) {
         this.em = em;
         this.queryFactory = jpaQueryFactory;
     }*/
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -61,9 +80,14 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /*
+     * 자주 조회되는 조건이라 쿼리 캐시 대상으로 표시한다.
+     * 쿼리 캐시가 꺼져있으면(cache 프로파일이 아니면) 힌트는 무시된다.
+     * */
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getResultList();
     }
 
@@ -71,6 +95,7 @@ public class MemberJpaRepository {
         return queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .fetch();
     }
 
@@ -101,8 +126,12 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /*
+     * member.search.result-cache.enabled=true 이면 결과 캐시를 거친다(MemberRepositoryImpl.search 와 공유).
+     * */
     public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition) {
-        return queryFactory
+        MemberPredicate predicate = predicates.compile(condition);
+        return resultCache.get(predicate, () -> queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -111,45 +140,75 @@ public class MemberJpaRepository {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                .where(predicate.getPredicate())
+                .fetch());
     }
 
-    public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
+    /*
+     * associations 에 선언한 연관관계만 미리 로딩한다.
+     * TEAM 은 fetch join, TEAM_MEMBERS 는 팀 컬렉션을 @BatchSize 단위 IN 쿼리로 한번에 초기화한다.
+     * 아무것도 선언하지 않으면 기존처럼 team 은 지연로딩 프록시다.
+     * */
+    public List<Member> searchMember(MemberSearchCondition condition, MemberAssociation... associations) {
+        Set<MemberAssociation> needs = associations.length == 0
+                ? EnumSet.noneOf(MemberAssociation.class)
+                : EnumSet.copyOf(Arrays.asList(associations));
+
+        JPAQuery<Member> query = queryFactory
                 .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                        //ageBetween(condition.getAgeLog() ,condition.getAgeGoe())
-                )
+                .leftJoin(member.team, team);
+        if (needs.contains(MemberAssociation.TEAM) || needs.contains(MemberAssociation.TEAM_MEMBERS)) {
+            query.fetchJoin();
+        }
+        List<Member> result = query
+                .where(predicates.compile(condition).getPredicate())
                 .fetch();
-    }
 
-    private BooleanExpression ageBetween(int ageLoe , int ageGoe){
-        return ageGoe(ageLoe).and(ageGoe(ageGoe));
-    }
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        if (needs.contains(MemberAssociation.TEAM_MEMBERS)) {
+            //첫 컬렉션을 초기화할 때 나머지 팀의 컬렉션도 배치 크기만큼 같이 로딩된다.
+            for (Member findMember : result) {
+                if (findMember.getTeam() != null) {
+                    Hibernate.initialize(findMember.getTeam().getMembers());
+                }
+            }
+        }
+        return result;
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /*
+     * 쓰기 트랜잭션 안에서도 결과 엔티티를 읽기 전용으로 로딩한다.
+     * 스냅샷을 만들지 않아 메모리를 덜 쓰지만 변경해도 반영되지 않는다.
+     * 조회 전에 자동 flush 도 하지 않으므로 아직 flush 되지 않은 변경은 결과에 보이지 않을 수 있다.
+     * */
+    public List<Member> searchMemberReadOnly(MemberSearchCondition condition) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(predicates.compile(condition).getPredicate())
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .fetch();
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    /*
+     * StatelessSession 으로 조회한다. 영속성 컨텍스트에 아무것도 남기지 않는다.
+     * 현재 트랜잭션의 커넥션을 그대로 쓰고, 지연로딩이 불가능하므로 team 은 fetch join 한다.
+     * 반환된 엔티티는 처음부터 준영속 상태다.
+     * */
+    public List<Member> searchMemberStateless(MemberSearchCondition condition) {
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            StatelessSession statelessSession = session.getSessionFactory().openStatelessSession(connection);
+            try {
+                return new HibernateQueryFactory(statelessSession)
+                        .selectFrom(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .where(predicates.compile(condition).getPredicate())
+                        .fetch();
+            } finally {
+                statelessSession.close();
+            }
+        });
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
 }
@@ -0,0 +1,52 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+
+import java.util.List;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+
+/*
+ * MemberSortResolver 가 Pageable 의 Sort 를 해석한 결과
+ * 정렬이 있으면 마지막은 항상 member.id 라서 같은 값이 여러 개여도 순서가 정해진다.
+ * */
+public final class MemberOrder {
+
+    static final MemberOrder UNSORTED = new MemberOrder(new OrderSpecifier<?>[0], false);
+
+    private static final OrderSpecifier<?>[] BY_ID = {member.id.asc()};
+
+    private final OrderSpecifier<?>[] orders;
+    private final boolean requiresTeamJoin;
+
+    MemberOrder(List<OrderSpecifier<?>> orders, boolean requiresTeamJoin) {
+        this(orders.toArray(new OrderSpecifier<?>[0]), requiresTeamJoin);
+    }
+
+    private MemberOrder(OrderSpecifier<?>[] orders, boolean requiresTeamJoin) {
+        this.orders = orders;
+        this.requiresTeamJoin = requiresTeamJoin;
+    }
+
+    public boolean isUnsorted() {
+        return orders.length == 0;
+    }
+
+    public OrderSpecifier<?>[] getOrders() {
+        return orders.clone();
+    }
+
+    /*
+     * 정렬이 없으면 id 순 (slice 처럼 페이지 경계가 흔들리면 안되는 경우)
+     * */
+    public OrderSpecifier<?>[] getOrdersOrById() {
+        return isUnsorted() ? BY_ID.clone() : getOrders();
+    }
+
+    /*
+     * team.name 으로 정렬할 때만 team 조인이 필요하다.
+     * */
+    public boolean requiresTeamJoin() {
+        return requiresTeamJoin;
+    }
+}
@@ -0,0 +1,87 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+import static querydslstudy.querydslstudy.entity.QTeam.team;
+
+/*
+ * MemberSearchCondition 을 컴파일한 결과. 불변이라 여러 쓰레드가 같이 써도 된다.
+ *
+ * predicate    : leftJoin(member.team, team) 한 쿼리용 (team 별칭 사용)
+ * implicit     : 조인 없이 member.team.name 경로를 쓰는 QuerydslPredicateExecutor(memberRepository.findAll(...))용
+ * bulk         : 조인을 쓸 수 없는 벌크 update/delete 용, 팀 조건은 서브쿼리
+ * 조건이 하나도 없으면 세 predicate 모두 null 이다(where 에서 무시된다).
+ * */
+@Getter
+public final class MemberPredicate {
+
+    private final String key;
+    private final MemberSearchShape shape;
+    private final String username;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+    private final Predicate predicate;
+    private final Predicate implicit;
+    private final Predicate bulk;
+
+    MemberPredicate(String key, MemberSearchShape shape, String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        this.key = key;
+        this.shape = shape;
+        this.username = username;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+        this.predicate = allOf(teamName != null ? team.name.eq(teamName) : null);
+        this.implicit = allOf(teamName != null ? member.team.name.eq(teamName) : null);
+        //member.team.id 는 FK 컬럼이라 조인이 생기지 않는다.
+        this.bulk = allOf(teamName != null
+                ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(teamName)))
+                : null);
+    }
+
+    /*
+     * member -> team 은 to-one 이라 조인해도 row 수가 바뀌지 않으므로 팀 조건이 있을 때만 조인이 필요하다.
+     * */
+    public boolean requiresTeamJoin() {
+        return teamName != null;
+    }
+
+    private Predicate allOf(BooleanExpression teamNameEq) {
+        List<Predicate> predicates = new ArrayList<>(4);
+        if (username != null) {
+            predicates.add(member.username.eq(username));
+        }
+        if (teamNameEq != null) {
+            predicates.add(teamNameEq);
+        }
+        BooleanExpression ageBetween = ageBetween(ageGoe, ageLoe);
+        if (ageBetween != null) {
+            predicates.add(ageBetween);
+        }
+        return ExpressionUtils.allOf(predicates);
+    }
+
+    private static BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe) {
+        if (ageGoe != null && ageLoe != null) {
+            return member.age.between(ageGoe, ageLoe);
+        }
+        if (ageGoe != null) {
+            return member.age.goe(ageGoe);
+        }
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
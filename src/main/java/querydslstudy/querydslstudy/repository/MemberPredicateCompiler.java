@@ -0,0 +1,71 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * MemberSearchCondition -> MemberPredicate
+ * MemberJpaRepository, MemberRepositoryImpl 가 같이 쓰는 검색조건 해석기
+ *
+ * 빈 문자열은 조건이 없는 것으로 정규화하고, 정규화한 값으로 key 를 만든다.
+ * 같은 key 면 같은 SQL 과 같은 결과이므로 count 캐시 등의 키로 쓴다.
+ * Querydsl 표현식은 불변이므로 key 별로 컴파일 결과를 캐시해서 재사용한다.
+ * */
+@Component
+public class MemberPredicateCompiler {
+
+    private final Map<String, MemberPredicate> cache = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public MemberPredicateCompiler(@Value("${member.search.predicate-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public MemberPredicate compile(MemberSearchCondition condition) {
+        String username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+        String teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        String key = key(username, teamName, ageGoe, ageLoe);
+
+        MemberPredicate compiled = cache.get(key);
+        if (compiled == null) {
+            compiled = new MemberPredicate(key, MemberSearchShape.of(condition), username, teamName, ageGoe, ageLoe);
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+            cache.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /*
+     * 문자열 값은 길이를 앞에 붙여서 값 안에 구분자가 들어있어도 key 가 겹치지 않게 한다.
+     * 예) username=member1, teamName 없음, ageGoe=10 -> "u7:member1|t|g10|l"
+     * */
+    static String key(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        StringBuilder key = new StringBuilder(32).append('u');
+        if (username != null) {
+            key.append(username.length()).append(':').append(username);
+        }
+        key.append("|t");
+        if (teamName != null) {
+            key.append(teamName.length()).append(':').append(teamName);
+        }
+        key.append("|g");
+        if (ageGoe != null) {
+            key.append(ageGoe);
+        }
+        key.append("|l");
+        if (ageLoe != null) {
+            key.append(ageLoe);
+        }
+        return key.toString();
+    }
+}
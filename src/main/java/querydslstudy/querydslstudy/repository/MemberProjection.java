@@ -0,0 +1,104 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * 요청한 필드만 select 하는 프로젝션
+ * 필드 5개의 조합이라 32가지뿐이므로 MemberSearchShape 처럼 클래스 로딩 시점에 모두 만들어둔다.
+ * 결과 변환은 필드별 setter 를 직접 호출하므로 Projections.bean 과 달리 row 마다 리플렉션을 쓰지 않는다.
+ * */
+public final class MemberProjection {
+
+    private static final MemberField[] FIELDS = MemberField.values();
+    private static final MemberProjection[] PROJECTIONS = new MemberProjection[1 << FIELDS.length];
+
+    static {
+        for (int bits = 1; bits < PROJECTIONS.length; bits++) {
+            PROJECTIONS[bits] = new MemberProjection(bits);
+        }
+    }
+
+    private final MemberField[] fields;
+    private final FactoryExpression<MemberSparseDto> expression;
+    private final boolean requiresTeamJoin;
+
+    private MemberProjection(int bits) {
+        List<MemberField> selected = new ArrayList<>();
+        List<Expression<?>> args = new ArrayList<>();
+        boolean teamJoin = false;
+        for (MemberField field : FIELDS) {
+            if ((bits & field.bit()) != 0) {
+                selected.add(field);
+                args.add(field.getExpression());
+                teamJoin |= field.requiresTeamJoin();
+            }
+        }
+        this.fields = selected.toArray(new MemberField[0]);
+        this.expression = new SparseFactory(this.fields, Collections.unmodifiableList(args));
+        this.requiresTeamJoin = teamJoin;
+    }
+
+    public static MemberProjection of(Set<MemberField> fields) {
+        int bits = 0;
+        for (MemberField field : fields) {
+            bits |= field.bit();
+        }
+        if (bits == 0) {
+            throw new IllegalArgumentException("at least one member field is required");
+        }
+        return PROJECTIONS[bits];
+    }
+
+    public FactoryExpression<MemberSparseDto> getExpression() {
+        return expression;
+    }
+
+    /*
+     * teamName 을 select 할 때만 team 조인이 필요하다. (검색조건의 팀 조건은 MemberPredicate 가 판단한다)
+     * */
+    public boolean requiresTeamJoin() {
+        return requiresTeamJoin;
+    }
+
+    private static final class SparseFactory extends FactoryExpressionBase<MemberSparseDto> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MemberField[] fields;
+        private final List<Expression<?>> args;
+
+        SparseFactory(MemberField[] fields, List<Expression<?>> args) {
+            super(MemberSparseDto.class);
+            this.fields = fields;
+            this.args = args;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public MemberSparseDto newInstance(Object... values) {
+            MemberSparseDto dto = new MemberSparseDto();
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(dto, values[i]);
+            }
+            return dto;
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+    }
+}
@@ -2,18 +2,47 @@ package querydslstudy.querydslstudy.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import querydslstudy.querydslstudy.dto.BulkMutationResult;
+import querydslstudy.querydslstudy.dto.MemberKeysetPage;
 import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
 import querydslstudy.querydslstudy.dto.MemberTeamDto;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition);
+
+    List<MemberSparseDto> searchSparse(MemberSearchCondition condition, Set<MemberField> fields);
+
+    Page<MemberSparseDto> searchPageSparse(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
+
+    void stream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer);
+
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageWindowed(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    MemberKeysetPage searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    BulkMutationResult bulkUpdate(MemberSearchCondition condition, MemberBulkUpdate assignments,
+                                  BulkProgressListener listener);
+
+    BulkMutationResult bulkDelete(MemberSearchCondition condition, BulkProgressListener listener);
+
 
 }
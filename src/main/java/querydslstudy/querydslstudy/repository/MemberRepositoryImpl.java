@@ -1,36 +1,119 @@
 package querydslstudy.querydslstudy.repository;
 
-import com.querydsl.core.QueryResults;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPADeleteClause;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.AllArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.config.WindowFunctionContributor;
+import querydslstudy.querydslstudy.dto.BulkMutationResult;
+import querydslstudy.querydslstudy.dto.EstimatedPage;
+import querydslstudy.querydslstudy.dto.MemberKeysetPage;
 import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
 import querydslstudy.querydslstudy.dto.MemberTeamDto;
 import querydslstudy.querydslstudy.dto.QMemberTeamDto;
+import querydslstudy.querydslstudy.entity.EntityChangeType;
 import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.MemberBulkChangedEvent;
+import querydslstudy.querydslstudy.index.SearchShapeRecorder;
+import querydslstudy.querydslstudy.metrics.MemberSearchMetrics;
 
 import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 
-import static org.springframework.util.StringUtils.hasText;
 import static querydslstudy.querydslstudy.entity.QMember.member;
 import static querydslstudy.querydslstudy.entity.QTeam.team;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+    private static final NumberExpression<Long> TOTAL_OVER =
+            Expressions.numberTemplate(Long.class, WindowFunctionContributor.COUNT_OVER + "()");
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicateCompiler predicates;
+    private final MemberSortResolver sortResolver;
+    private final MemberCountCache countCache;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchTemplates searchTemplates;
+    private final SearchCountExecutor countExecutor;
+    private final SearchShapeRecorder shapeRecorder;
+    private final MemberSearchMetrics metrics;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int streamFetchSize;
+    private final long parallelTimeoutMillis;
+    private final int bulkChunkSize;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberPredicateCompiler predicates, MemberSortResolver sortResolver,
+                                MemberCountCache countCache, MemberSearchResultCache resultCache,
+                                MemberSearchTemplates searchTemplates, SearchCountExecutor countExecutor,
+                                SearchShapeRecorder shapeRecorder, MemberSearchMetrics metrics,
+                                ApplicationEventPublisher publisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.search.stream-fetch-size:1000}") int streamFetchSize,
+                                @Value("${member.search.parallel.timeout:5s}") Duration parallelTimeout,
+                                @Value("${member.bulk-mutation.chunk-size:1000}") int bulkChunkSize) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.predicates = predicates;
+        this.sortResolver = sortResolver;
+        this.countCache = countCache;
+        this.resultCache = resultCache;
+        this.searchTemplates = searchTemplates;
+        this.countExecutor = countExecutor;
+        this.shapeRecorder = shapeRecorder;
+        this.metrics = metrics;
+        this.publisher = publisher;
+        //바깥 트랜잭션이 있으면 참여하고, 없으면 청크마다 새로 시작해서 커밋한다.
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.streamFetchSize = streamFetchSize;
+        this.parallelTimeoutMillis = parallelTimeout.toMillis();
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        shapeRecorder.record(condition);
+        MemberPredicate predicate = predicates.compile(condition);
+        return resultCache.get(predicate, () -> queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -39,18 +122,109 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(predicate.getPredicate())
+                .fetch());
+    }
+
+    /*
+     * search() 와 결과는 같고, 조건 모양별로 미리 만들어둔 JPQL 에 파라미터만 바인딩한다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition) {
+        shapeRecorder.record(condition);
+        return searchTemplates.search(condition);
+    }
+
+    /*
+     * 요청한 필드만 select 한다.
+     * teamName 을 select 하지 않고 팀 조건도 없으면 team 조인을 아예 하지 않는다(teamId 는 member 의 FK 컬럼).
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberSparseDto> searchSparse(MemberSearchCondition condition, Set<MemberField> fields) {
+        shapeRecorder.record(condition);
+        return sparseQuery(predicates.compile(condition), MemberProjection.of(fields), MemberOrder.UNSORTED)
                 .fetch();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Page<MemberSparseDto> searchPageSparse(MemberSearchCondition condition, Set<MemberField> fields,
+                                                  Pageable pageable) {
+        shapeRecorder.record(condition);
+        MemberPredicate predicate = predicates.compile(condition);
+        MemberOrder order = sortResolver.resolve(pageable.getSort(), predicate);
+        List<MemberSparseDto> content = sparseQuery(predicate, MemberProjection.of(fields), order)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (totalFromContent(content, pageable)) {
+            metrics.countSkipped();
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+        }
+        JPAQuery<Long> countQuery = countQuery(condition);
+        return new PageImpl<>(content, pageable, countCache.getOrCount(condition, countQuery::fetchOne));
+    }
+
+    private JPAQuery<MemberSparseDto> sparseQuery(MemberPredicate predicate, MemberProjection projection,
+                                                  MemberOrder order) {
+        JPAQuery<MemberSparseDto> query = queryFactory
+                .select(projection.getExpression())
+                .from(member);
+        if (projection.requiresTeamJoin() || predicate.requiresTeamJoin() || order.requiresTeamJoin()) {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(predicate.getPredicate())
+                .orderBy(order.getOrders());
+    }
+
+    /*
+     * 정렬은 MemberSortResolver 의 화이트리스트/인덱스 정책을 거친다. 정렬이 없으면 기존처럼 order by 도 없다.
+     * */
+    private OrderSpecifier<?>[] pageOrder(MemberSearchCondition condition, Pageable pageable) {
+        return sortResolver.resolve(pageable.getSort(), predicates.compile(condition)).getOrders();
+    }
+
+    /*
+     * 결과를 리스트로 모으지 않고 한 건씩 consumer 에 넘긴다.
+     * 하이버네이트에서 iterate() 는 FORWARD_ONLY ScrollableResults 로 동작하고,
+     * fetch size 만큼씩 드라이버가 읽어오므로 전체 건수와 상관없이 메모리 사용량이 일정하다.
+     * DTO 로 조회하므로 영속성 컨텍스트에도 쌓이지 않는다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public void stream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        shapeRecorder.record(condition);
+        CloseableIterator<MemberTeamDto> iterator = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.HINT_FETCH_SIZE, streamFetchSize)
+                .iterate();
+        try {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        shapeRecorder.record(condition);
+        List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -59,25 +233,23 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(pageOrder(condition, pageable))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
+                .fetch();
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+        long total = countQuery(condition).fetchOne();
+        metrics.countExecuted();
         return new PageImpl<>(content, pageable, total);
 
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        shapeRecorder.record(condition);
         List<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -87,71 +259,435 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(pageOrder(condition, pageable))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
+        //PageableExecutionUtils.getPage 와 같은 조건으로 count 를 생략한다.
+        if (totalFromContent(results, pageable)) {
+            metrics.countSkipped();
+            return new PageImpl<>(results, pageable, pageable.getOffset() + results.size());
+        }
+        JPAQuery<Long> countQuery = countQuery(condition);
+        return new PageImpl<>(results, pageable, countCache.getOrCount(condition, countQuery::fetchOne));
+        //  return new PageImpl<>(results,pageable ,count);
+    }
+
+    /*
+     * count 쿼리를 별도 커넥션에서 컨텐츠 쿼리와 동시에 실행한다.
+     * 응답 시간이 두 쿼리의 합이 아니라 느린 쪽을 따라간다.
+     *
+     * 컨텐츠만으로 total 을 알 수 있으면(PageableExecutionUtils 와 같은 조건) count 는 취소한다.
+     * 두 쿼리 모두 timeout 힌트로 DB 에서도 중단되고, 기다리는 시간도 같은 timeout 을 넘지 않는다.
+     * 주의: count 는 새 트랜잭션에서 실행되므로 호출한 트랜잭션의 커밋 전 변경은 보이지 않는다.
+     *
+     * 메서드 전체를 트랜잭션으로 묶지 않는다. 컨텐츠 조회만 짧은 트랜잭션에서 하고 커넥션을 돌려준 뒤에 count 를 기다린다.
+     * 커넥션을 잡은 채로 count 의 커넥션을 기다리면, 동시 요청이 풀을 다 쓴 순간 모든 요청이 서로를 기다리다 timeout 난다.
+     * count 풀이 가득 차면 컨텐츠 조회 뒤에 직렬로 센다.
+     * 호출한 쪽이 트랜잭션을 열었거나 open-in-view 의 EntityManager 가 커넥션을 계속 들고 있으면 이 보장은 없다(perf 는 open-in-view 를 끈다).
+     * */
+    @Override
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        shapeRecorder.record(condition);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelTimeoutMillis);
+        //허용되지 않는 정렬이면 count 를 제출하기 전에 400 으로 끝낸다.
+        OrderSpecifier<?>[] order = pageOrder(condition, pageable);
+
+        OptionalLong cached = countCache.find(condition);
+        Supplier<Long> count = () -> countCache.getOrCount(condition, () -> countQuery(condition)
+                .setHint(QUERY_TIMEOUT_HINT, parallelTimeoutMillis)
+                .fetchOne());
+        Future<Long> countFuture = null;
+        if (!cached.isPresent()) {
+            try {
+                countFuture = countExecutor.submit(count);
+            } catch (RejectedExecutionException e) {
+                //컨텐츠 조회 후 직렬로 센다.
+            }
+        }
+
+        List<MemberTeamDto> content;
+        try {
+            content = readOnlyTransaction.execute(status -> queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(predicates.compile(condition).getPredicate())
+                    .orderBy(order)
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .setHint(QUERY_TIMEOUT_HINT, parallelTimeoutMillis)
+                    .fetch());
+        } catch (RuntimeException e) {
+            cancel(countFuture);
+            throw e;
+        }
+
+        if (totalFromContent(content, pageable)) {
+            cancel(countFuture);
+            metrics.countSkipped();
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+        }
+        if (cached.isPresent()) {
+            metrics.countCached();
+            return new PageImpl<>(content, pageable, cached.getAsLong());
+        }
+        if (countFuture == null) {
+            return new PageImpl<>(content, pageable, countExecutor.run(count));
+        }
+        return new PageImpl<>(content, pageable, await(countFuture, deadline));
+    }
+
+    /*
+     * 컨텐츠 row 마다 count(*) over() 를 붙여서 한 번의 왕복으로 페이지와 전체 건수를 같이 가져온다.
+     * 전체 건수는 첫 row 에서 읽는다. DB 는 조건에 맞는 row 를 모두 세야 하므로 DB 작업량은 count 쿼리와 비슷하고,
+     * 줄어드는 것은 네트워크 왕복과 두 번째 쿼리의 파싱/플랜 비용이다.
+     *
+     * 마지막 페이지 뒤를 요청해서 row 가 하나도 없으면 전체 건수를 알 수 없으므로 그때만 count 쿼리로 후퇴한다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageWindowed(MemberSearchCondition condition, Pageable pageable) {
+        shapeRecorder.record(condition);
+        QMemberTeamDto dto = new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+        List<Tuple> rows = queryFactory
+                .select(dto, TOTAL_OVER)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
-        return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchCount);
-        //  return new PageImpl<>(results,pageable ,count);
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(pageOrder(condition, pageable))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(row.get(dto));
+        }
+        if (!rows.isEmpty()) {
+            metrics.countWindowed();
+            return new PageImpl<>(content, pageable, rows.get(0).get(TOTAL_OVER));
+        }
+        if (pageable.getOffset() == 0) {
+            metrics.countSkipped();
+            return new PageImpl<>(content, pageable, 0);
+        }
+        JPAQuery<Long> countQuery = countQuery(condition);
+        return new PageImpl<>(content, pageable, countCache.getOrCount(condition, countQuery::fetchOne));
     }
+
     /*
-     * count 쿼리가 생략 가능한 경우 생략해서 처리
-     * 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을때
-     * 마지막 페이지 일때 (offset + 컨텐츠 사이즈를 ) 더해서 보여줌
+     * 첫 페이지가 페이지 크기보다 작거나, 중간 이후 페이지인데 컨텐츠가 페이지 크기보다 작으면(마지막 페이지)
+     * offset + 컨텐츠 크기가 곧 전체 건수다.
      * */
+    private static boolean totalFromContent(List<?> content, Pageable pageable) {
+        return content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty());
+    }
 
+    private long await(Future<Long> countFuture, long deadline) {
+        try {
+            return countFuture.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel(countFuture);
+            throw new QueryTimeoutException("count query timed out after " + parallelTimeoutMillis + "ms", e);
+        } catch (InterruptedException e) {
+            cancel(countFuture);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("interrupted while waiting for count query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void cancel(Future<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
 
     /*
-    * 스프링 데이터 JPA는 자신의 정렬을 Querydsl의 정렬 로 편리하게 변경하는 기능을 제공한다.
-    *
-    * */
-    public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
-                .selectFrom(member)
+     * count 전용 쿼리
+     * member -> team 은 to-one 이라 조인해도 row 수가 바뀌지 않는다.
+     * 그래서 team 조건이 있을 때만 조인하고, 엔티티 대신 count(member.id) 만 select 한다.
+     * */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        MemberPredicate predicate = predicates.compile(condition);
+        JPAQuery<Long> query = queryFactory
+                .select(member.id.count())
+                .from(member);
+        if (predicate.requiresTeamJoin()) {
+            query.join(member.team, team);
+        }
+        return query
+                .where(predicate.getPredicate());
+    }
+
+    /*
+     * count 쿼리를 실행하지 않는 페이징
+     * 마지막 페이지라서 total 을 계산할 수 있거나 count 캐시에 값이 있으면 정확한 값을 쓰고,
+     * 그 외에는 PK 인덱스만 읽는 min/max(id) 로 상한값을 만들어 approximate 로 표시한다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        shapeRecorder.record(condition);
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(pageOrder(condition, pageable))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        long seen = pageable.getOffset() + content.size();
+        if (totalFromContent(content, pageable)) {
+            metrics.countSkipped();
+            return new EstimatedPage<>(content, pageable, seen, false);
+        }
+
+        OptionalLong cached = countCache.find(condition);
+        if (cached.isPresent()) {
+            metrics.countCached();
+            return new EstimatedPage<>(content, pageable, cached.getAsLong(), false);
+        }
+        metrics.countEstimated();
+        return new EstimatedPage<>(content, pageable, Math.max(idRangeUpperBound(), seen), true);
+    }
+
+    /*
+     * 전체 건수가 필요없는 화면(무한 스크롤)용. count 쿼리를 아예 실행하지 않는다.
+     * 페이지 크기 + 1 개를 조회해서 남는 한 건으로 다음 페이지 여부만 판단한다.
+     * 페이지 경계가 흔들리지 않도록 정렬이 없으면 id 순으로 정렬한다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        shapeRecorder.record(condition);
+        List<MemberTeamDto> results = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates.compile(condition).getPredicate())
+                .orderBy(sortResolver.resolve(pageable.getSort(), predicates.compile(condition)).getOrdersOrById())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = results.size() > pageable.getPageSize();
+        List<MemberTeamDto> content = hasNext ? results.subList(0, pageable.getPageSize()) : results;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private long idRangeUpperBound() {
+        NumberExpression<Long> minId = member.id.min();
+        NumberExpression<Long> maxId = member.id.max();
+        Tuple range = queryFactory
+                .select(minId, maxId)
+                .from(member)
+                .fetchOne();
+        Long min = range.get(minId);
+        Long max = range.get(maxId);
+        return min == null ? 0 : max - min + 1;
+    }
+
+    /*
+     * offset 대신 마지막으로 읽은 (정렬키, id) 이후부터 조회한다.
+     * 앞 페이지 row 를 스캔하고 버리지 않으므로 몇 번째 페이지든 비용이 같다.
+     * 다음 페이지 존재 여부는 size + 1 개를 조회해서 판단한다.
+     * */
+    @Override
+    @Transactional(readOnly = true)
+    public MemberKeysetPage searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        shapeRecorder.record(condition);
+        List<MemberTeamDto> results = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                        //ageBetween(condition.getAgeLog() ,condition.getAgeGoe())
-                )
+                .where(predicates.compile(condition).getPredicate(), afterCursor(cursor))
+                .orderBy(keysetOrder(cursor.getSort()))
+                .limit(size + 1)
                 .fetch();
+
+        boolean hasNext = results.size() > size;
+        List<MemberTeamDto> content = hasNext ? results.subList(0, size) : results;
+        String nextCursor = hasNext
+                ? MemberCursor.after(cursor.getSort(), content.get(content.size() - 1)).encode()
+                : null;
+        return new MemberKeysetPage(content, size, hasNext, nextCursor);
     }
 
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
-        return ageGoe(ageLoe).and(ageGoe(ageGoe));
+    private BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        switch (cursor.getSort()) {
+            case USERNAME:
+                return member.username.gt(cursor.getLastValue())
+                        .or(member.username.eq(cursor.getLastValue()).and(member.id.gt(cursor.getLastId())));
+            case AGE:
+                return member.age.gt(cursor.lastAge())
+                        .or(member.age.eq(cursor.lastAge()).and(member.id.gt(cursor.getLastId())));
+            default:
+                return member.id.gt(cursor.getLastId());
+        }
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private OrderSpecifier<?>[] keysetOrder(MemberCursor.Sort sort) {
+        switch (sort) {
+            case USERNAME:
+                return new OrderSpecifier<?>[]{member.username.asc(), member.id.asc()};
+            case AGE:
+                return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            default:
+                return new OrderSpecifier<?>[]{member.id.asc()};
+        }
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /*
+     * 조건에 맞는 회원을 id 범위 청크로 나눠서 update 한다.
+     * 한번에 전체를 update 하면 긴 시간 넓은 범위에 락이 걸리므로 청크마다 커밋해서 락을 금방 놓는다.
+     * 호출한 쪽에 트랜잭션이 있으면 그 트랜잭션에 참여하므로 청크별 커밋은 되지 않는다.
+     *
+     * 청크 실행 전에 flush 하고, 실행 후에 영속성 컨텍스트를 비운다(@Modifying(clearAutomatically) 와 같다).
+     * 호출한 쪽이 들고 있던 엔티티는 준영속이 되므로 다시 조회해야 한다.
+     * */
+    @Override
+    public BulkMutationResult bulkUpdate(MemberSearchCondition condition, MemberBulkUpdate assignments,
+                                         BulkProgressListener listener) {
+        if (assignments.getUsername() == null && assignments.getAge() == null && assignments.getAgeDelta() == null) {
+            throw new IllegalArgumentException("bulk update has no assignments");
+        }
+        Predicate bulk = predicates.compile(condition).getBulk();
+        return inChunks(condition, EntityChangeType.UPDATE, listener, fromId -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            assignments.applyTo(update);
+            return update
+                    .where(bulk, member.id.between(fromId, fromId + bulkChunkSize - 1))
+                    .execute();
+        });
+    }
+
+    @Override
+    public BulkMutationResult bulkDelete(MemberSearchCondition condition, BulkProgressListener listener) {
+        Predicate bulk = predicates.compile(condition).getBulk();
+        return inChunks(condition, EntityChangeType.REMOVE, listener, fromId -> {
+            JPADeleteClause delete = queryFactory.delete(member);
+            return delete
+                    .where(bulk, member.id.between(fromId, fromId + bulkChunkSize - 1))
+                    .execute();
+        });
+    }
+
+    /*
+     * 청크는 [fromId, fromId + chunkSize - 1] 구간이다. 다음 청크는 구간 뒤에서 조건에 맞는 가장 작은 id 부터 시작하므로
+     * id 가 듬성듬성해도 빈 구간마다 트랜잭션을 열지 않는다. 바뀐 row 가 없는 청크는 이벤트를 발행하지 않는다.
+     * 리스너의 chunks 는 min~max 구간으로 계산한 최대 청크 수라서 실제 청크 수(결과의 chunks)보다 클 수 있다.
+     * */
+    private BulkMutationResult inChunks(MemberSearchCondition condition, EntityChangeType type,
+                                        BulkProgressListener listener, LongFunction<Long> chunkStatement) {
+        long start = System.currentTimeMillis();
+        Predicate bulk = predicates.compile(condition).getBulk();
+        NumberExpression<Long> minId = member.id.min();
+        NumberExpression<Long> maxId = member.id.max();
+        Tuple range = chunkTransaction.execute(status -> {
+            em.flush();
+            return queryFactory
+                    .select(minId, maxId)
+                    .from(member)
+                    .where(bulk)
+                    .fetchOne();
+        });
+        Long min = range.get(minId);
+        Long max = range.get(maxId);
+        if (min == null) {
+            return new BulkMutationResult(0, 0, System.currentTimeMillis() - start);
+        }
+
+        int chunks = (int) ((max - min) / bulkChunkSize + 1);
+        int chunk = 0;
+        long total = 0;
+        Long fromId = min;
+        while (fromId != null && fromId <= max) {
+            long from = fromId;
+            long to = from + bulkChunkSize - 1;
+            int current = ++chunk;
+            long runningTotal = total;
+            Chunk done = chunkTransaction.execute(status -> {
+                em.flush();
+                long rows = chunkStatement.apply(from);
+                em.clear();
+                if (rows > 0) {
+                    publisher.publishEvent(new MemberBulkChangedEvent(type, condition, from, to, rows));
+                }
+                listener.onChunk(current, chunks, rows, runningTotal + rows);
+                Long next = queryFactory
+                        .select(member.id.min())
+                        .from(member)
+                        .where(bulk, member.id.gt(to))
+                        .fetchOne();
+                return new Chunk(rows, next);
+            });
+            total += done.rows;
+            fromId = done.nextId;
+        }
+        return new BulkMutationResult(chunk, total, System.currentTimeMillis() - start);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    @AllArgsConstructor
+    private static class Chunk {
+        private final long rows;
+        private final Long nextId;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    /*
+     * count 쿼리가 생략 가능한 경우 생략해서 처리
+     * 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을때
+     * 마지막 페이지 일때 (offset + 컨텐츠 사이즈를 ) 더해서 보여줌
+     * */
+
+
+    /*
+    * 스프링 데이터 JPA는 자신의 정렬을 Querydsl의 정렬 로 편리하게 변경하는 기능을 제공한다.
+    *
+    * */
+    public List<Member> searchMember(MemberSearchCondition condition) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(predicates.compile(condition).getPredicate())
+                .fetch();
     }
+
 }
@@ -0,0 +1,233 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import querydslstudy.querydslstudy.config.ReplicaLagMonitor;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.EntityChangeType;
+import querydslstudy.querydslstudy.entity.MemberBulkChangedEvent;
+import querydslstudy.querydslstudy.entity.MemberChangedEvent;
+import querydslstudy.querydslstudy.entity.TeamChangedEvent;
+import querydslstudy.querydslstudy.support.TransactionEventBuffer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * 검색조건(MemberPredicate key)별 검색 결과 캐시. member.search.result-cache.enabled=true 일 때만 동작한다.
+ * MemberRepositoryImpl.search 와 MemberJpaRepository.searchByWhere 는 같은 결과이므로 캐시를 같이 쓴다.
+ *
+ * Caffeine(W-TinyLFU)이라 자주 쓰이는 조건이 남고, 같은 key 로 동시에 들어온 miss 는 한 번만 조회한다.
+ * 읽기 전용 트랜잭션에서만 쓴다. 쓰기 트랜잭션은 아직 flush 되지 않은 자기 변경을 봐야 하기 때문이다.
+ *
+ * 무효화는 커밋된 변경만, 트랜잭션당 한 번 모아서 한다(MAX_BUFFERED_EVENTS 를 넘으면 전부 비운다).
+ * 다른 트랜잭션은 커밋 전 변경을 볼 수 없으므로 커밋 전에 비울 필요가 없다.
+ * - Member 변경: 결과에 그 회원이 있거나, 변경된 값이 조건에 맞는 엔트리
+ *   (팀 이름은 이벤트에 없으므로 팀 조건은 맞는 것으로 본다)
+ * - Team 변경: 결과에 그 팀이 있거나, 조건의 팀 이름이 변경된 이름과 같은 엔트리
+ * - 벌크 변경: 어떤 값이 바뀌었는지 모르므로 전부
+ * 조회 중인 key 는 조회하는 동안 커밋된 변경을 따로 받아두고, 조회가 끝난 결과가 그 변경에 해당할 때만 버린다.
+ * 다른 key 의 변경이나 관계없는 변경 때문에 버려지지 않는다.
+ *
+ * replica 라우팅을 쓰면 커밋 후 무효화가 끝난 뒤에도 replica 가 그 커밋을 아직 반영하지 못했을 수 있다.
+ * 그래서 replica 로 읽고 있고 마지막으로 잰 지연이 0 보다 크면 조회 결과를 캐시에 넣지 않는다(이미 있는 엔트리는 쓴다).
+ * 지연은 check-interval 마다 재므로 그 사이의 짧은 지연은 놓칠 수 있고, 그런 엔트리는 ttl 까지 남을 수 있다.
+ *
+ * 반환하는 리스트는 여러 요청이 공유하므로 수정하면 안 된다.
+ * */
+@Component
+public class MemberSearchResultCache {
+
+    static final int MAX_BUFFERED_EVENTS = 1_000;
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+    private final Set<Load> loading = ConcurrentHashMap.newKeySet();
+    private final ObjectProvider<ReplicaLagMonitor> lagMonitor;
+    private final TransactionEventBuffer<Object> pendingInvalidations =
+            new TransactionEventBuffer<>(MAX_BUFFERED_EVENTS, this::afterCompletion);
+
+    public MemberSearchResultCache(MeterRegistry registry, ObjectProvider<ReplicaLagMonitor> lagMonitor,
+                                   @Value("${member.search.result-cache.enabled:false}") boolean enabled,
+                                   @Value("${member.search.result-cache.max-size:1000}") long maxSize,
+                                   @Value("${member.search.result-cache.ttl:60s}") Duration ttl) {
+        this.enabled = enabled;
+        this.lagMonitor = lagMonitor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "member.search.results");
+    }
+
+    public List<MemberTeamDto> get(MemberPredicate predicate, Supplier<List<MemberTeamDto>> query) {
+        if (!enabled || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+        if (replicaLagging()) {
+            Entry cached = cache.getIfPresent(predicate.getKey());
+            return cached != null ? cached.rows : query.get();
+        }
+
+        //loading 에서 빼는 건 엔트리가 캐시에 들어간 뒤여야 한다. 그 사이 변경은 둘 중 한 곳에서 반드시 걸린다.
+        Load load = new Load();
+        Entry entry;
+        try {
+            entry = cache.get(predicate.getKey(), key -> {
+                loading.add(load);
+                return new Entry(predicate, query.get());
+            });
+        } finally {
+            loading.remove(load);
+        }
+        if (load.isStale(entry)) {
+            cache.asMap().remove(predicate.getKey(), entry);
+        }
+        return entry.rows;
+    }
+
+    public void invalidateAll() {
+        for (Load load : loading) {
+            load.markStale();
+        }
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        buffer(event);
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        buffer(event);
+    }
+
+    @EventListener
+    public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+        buffer(event);
+    }
+
+    private void buffer(Object event) {
+        if (enabled) {
+            pendingInvalidations.add(event);
+        }
+    }
+
+    private void afterCompletion(List<Object> events, boolean overflow, boolean committed) {
+        if (!committed) {
+            return;
+        }
+        if (overflow || events.stream().anyMatch(MemberBulkChangedEvent.class::isInstance)) {
+            invalidateAll();
+            return;
+        }
+        for (Load load : loading) {
+            load.record(events);
+        }
+        cache.asMap().values().removeIf(entry -> entry.affectedBy(events));
+    }
+
+    private boolean replicaLagging() {
+        ReplicaLagMonitor monitor = lagMonitor.getIfAvailable();
+        return monitor != null && monitor.isAvailable() && monitor.getLastLagSeconds() > 0;
+    }
+
+    /*
+     * 진행 중인 조회 하나. 조회하는 동안 커밋된 변경을 모아뒀다가 결과가 나오면 그 결과로 판단한다.
+     * */
+    private static class Load {
+        private final List<Object> events = new ArrayList<>();
+        private boolean stale;
+
+        synchronized void record(List<Object> committed) {
+            if (stale) {
+                return;
+            }
+            if (events.size() + committed.size() > MAX_BUFFERED_EVENTS) {
+                markStale();
+                return;
+            }
+            events.addAll(committed);
+        }
+
+        synchronized void markStale() {
+            stale = true;
+            events.clear();
+        }
+
+        synchronized boolean isStale(Entry entry) {
+            return stale || entry.affectedBy(events);
+        }
+    }
+
+    private static class Entry {
+        private final MemberPredicate predicate;
+        private final List<MemberTeamDto> rows;
+        private final Set<Long> memberIds = new HashSet<>();
+        private final Set<Long> teamIds = new HashSet<>();
+
+        Entry(MemberPredicate predicate, List<MemberTeamDto> rows) {
+            this.predicate = predicate;
+            this.rows = Collections.unmodifiableList(rows);
+            for (MemberTeamDto row : rows) {
+                memberIds.add(row.getMemberId());
+                if (row.getTeamId() != null) {
+                    teamIds.add(row.getTeamId());
+                }
+            }
+        }
+
+        boolean affectedBy(List<Object> events) {
+            for (Object event : events) {
+                if (event instanceof MemberChangedEvent && affectedBy((MemberChangedEvent) event)) {
+                    return true;
+                }
+                if (event instanceof TeamChangedEvent && affectedBy((TeamChangedEvent) event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean affectedBy(MemberChangedEvent event) {
+            return memberIds.contains(event.getMemberId())
+                    || (event.getType() != EntityChangeType.REMOVE && mayMatch(event));
+        }
+
+        private boolean affectedBy(TeamChangedEvent event) {
+            return teamIds.contains(event.getTeamId())
+                    || (predicate.getTeamName() != null && predicate.getTeamName().equals(event.getName()));
+        }
+
+        /*
+         * 변경된 회원이 이 조건의 결과에 새로 들어올 수 있는지
+         * */
+        private boolean mayMatch(MemberChangedEvent event) {
+            if (predicate.getUsername() != null && !predicate.getUsername().equals(event.getUsername())) {
+                return false;
+            }
+            if (predicate.getTeamName() != null && event.getTeamId() == null) {
+                return false;
+            }
+            if (predicate.getAgeGoe() != null && event.getAge() < predicate.getAgeGoe()) {
+                return false;
+            }
+            return predicate.getAgeLoe() == null || event.getAge() <= predicate.getAgeLoe();
+        }
+    }
+}
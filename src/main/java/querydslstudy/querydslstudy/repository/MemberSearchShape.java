@@ -0,0 +1,74 @@
+package querydslstudy.querydslstudy.repository;
+
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * 검색조건 중 어떤 값이 들어있는지(값 자체가 아니라 존재 여부)만 나타낸다.
+ * 조건 4개의 조합이라 모양은 16가지뿐이고, 같은 모양이면 같은 JPQL 이 만들어진다.
+ * */
+public final class MemberSearchShape {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[16];
+
+    static {
+        for (int bits = 0; bits < SHAPES.length; bits++) {
+            SHAPES[bits] = new MemberSearchShape(bits);
+        }
+    }
+
+    private final int bits;
+    private final String name;
+
+    private MemberSearchShape(int bits) {
+        this.bits = bits;
+        StringJoiner joiner = new StringJoiner("+");
+        if ((bits & USERNAME) != 0) joiner.add("username");
+        if ((bits & TEAM_NAME) != 0) joiner.add("teamName");
+        if ((bits & AGE_GOE) != 0) joiner.add("ageGoe");
+        if ((bits & AGE_LOE) != 0) joiner.add("ageLoe");
+        this.name = bits == 0 ? "none" : joiner.toString();
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int bits = 0;
+        if (hasText(condition.getUsername())) bits |= USERNAME;
+        if (hasText(condition.getTeamName())) bits |= TEAM_NAME;
+        if (condition.getAgeGoe() != null) bits |= AGE_GOE;
+        if (condition.getAgeLoe() != null) bits |= AGE_LOE;
+        return SHAPES[bits];
+    }
+
+    public static MemberSearchShape of(int bits) {
+        return SHAPES[bits];
+    }
+
+    public static List<MemberSearchShape> all() {
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(SHAPES)));
+    }
+
+    public int bits() {
+        return bits;
+    }
+
+    public boolean has(int flag) {
+        return (bits & flag) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
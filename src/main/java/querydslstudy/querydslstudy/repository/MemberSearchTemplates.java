@@ -0,0 +1,140 @@
+package querydslstudy.querydslstudy.repository;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 검색 쿼리 템플릿 캐시
+ * search() 는 호출마다 QMemberTeamDto 프로젝션, 조인, BooleanExpression 트리를 다시 만들고 JPQL 로 직렬화한다.
+ * 조건의 모양은 16가지뿐이므로 모양별 JPQL 을 한 번만 만들어두고, 요청마다 파라미터만 바인딩한다.
+ *
+ * JPQL 문자열이 고정되므로 하이버네이트 QueryPlanCache 에서도 항상 같은 플랜을 재사용한다.
+ * 생성자 프로젝션(select new)도 플랜에 포함되어 요청마다 생성자를 찾지 않는다.
+ * 모양별로는 호출 수만 센다. 플랜 캐시 hit/miss 는 하이버네이트 Statistics 에서 읽는다(SearchTemplateMetrics).
+ * */
+@Component
+public class MemberSearchTemplates {
+
+    private static final String SELECT = "select new querydslstudy.querydslstudy.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)"
+            + " from Member m left join m.team t";
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final boolean warmUp;
+    private final Template[] templates = new Template[16];
+
+    public MemberSearchTemplates(EntityManager em, EntityManagerFactory emf,
+                                 @Value("${member.search.template.warm-up:true}") boolean warmUp) {
+        this.em = em;
+        this.emf = emf;
+        this.warmUp = warmUp;
+        for (MemberSearchShape shape : MemberSearchShape.all()) {
+            templates[shape.bits()] = new Template(shape, jpql(shape));
+        }
+    }
+
+    /*
+     * 애플리케이션 시작 시점에 16개 모양을 모두 파싱해서 첫 요청이 플랜 생성 비용을 내지 않게 한다.
+     * */
+    @PostConstruct
+    public void compileAll() {
+        if (!warmUp) {
+            return;
+        }
+        EntityManager compileEm = emf.createEntityManager();
+        try {
+            for (Template template : templates) {
+                compileEm.createQuery(template.getJpql(), MemberTeamDto.class);
+            }
+        } finally {
+            compileEm.close();
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        Template template = templates[shape.bits()];
+        template.invocations.incrementAndGet();
+
+        TypedQuery<MemberTeamDto> query = em.createQuery(template.getJpql(), MemberTeamDto.class);
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query.getResultList();
+    }
+
+    public Map<String, Template> getTemplates() {
+        Map<String, Template> result = new LinkedHashMap<>();
+        for (Template template : templates) {
+            result.put(template.getShape().toString(), template);
+        }
+        return result;
+    }
+
+    public long invocations() {
+        long invocations = 0;
+        for (Template template : templates) {
+            invocations += template.getInvocations();
+        }
+        return invocations;
+    }
+
+    static String jpql(MemberSearchShape shape) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        String prefix = " where ";
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            jpql.append(prefix).append("m.username = :username");
+            prefix = " and ";
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            jpql.append(prefix).append("t.name = :teamName");
+            prefix = " and ";
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            jpql.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            jpql.append(prefix).append("m.age <= :ageLoe");
+        }
+        return jpql.toString();
+    }
+
+    @Getter
+    public static class Template {
+
+        private final MemberSearchShape shape;
+        private final String jpql;
+        private final AtomicLong invocations = new AtomicLong();
+
+        Template(MemberSearchShape shape, String jpql) {
+            this.shape = shape;
+            this.jpql = jpql;
+        }
+
+        public long getInvocations() {
+            return invocations.get();
+        }
+    }
+}
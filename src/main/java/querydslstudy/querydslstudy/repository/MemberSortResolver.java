@@ -0,0 +1,127 @@
+package querydslstudy.querydslstudy.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static querydslstudy.querydslstudy.entity.QMember.member;
+import static querydslstudy.querydslstudy.entity.QTeam.team;
+
+/*
+ * Pageable 의 Sort -> Querydsl OrderSpecifier
+ * 정렬 가능한 프로퍼티는 memberId, username, age, teamName 뿐이고 그 외는 항상 400 이다.
+ *
+ * 인덱스로 정렬 순서를 읽을 수 없는 정렬은 조건에 맞는 row 전체를 정렬해야 하므로 policy 에 따라
+ * REJECT(기본): 400 으로 거절한다.
+ * DEGRADE: 그 정렬만 빼고 실행한다. (모두 빠지면 id 순)
+ *
+ * 인덱스로 정렬할 수 있는 경우 (Member/Team 의 @Table 인덱스 기준)
+ * - memberId: PK
+ * - 첫 번째 정렬의 username: 팀, 나이 조건이 없을 때만(idx_member_username 전체를 순서대로 읽는다).
+ *   팀이나 나이 조건이 있으면 그 인덱스로 찾은 row 를 다시 username 으로 정렬해야 한다.
+ * - 첫 번째 정렬의 age: 팀 조건이 없으면 idx_member_age(나이 조건은 같은 인덱스의 범위),
+ *   팀 조건이 있으면 idx_member_team_age(team_id 가 같은 구간이 age 순서다, 팀 이름 하나에 팀 하나인 것을 전제로 한다).
+ * - teamName: 팀 조건이 있으면 모든 row 의 팀 이름이 같아서 실제로 정렬할 것이 없다.
+ * - username 조건이 있으면 idx_member_username 로 찾은 소수의 row 만 정렬하므로 무엇이든 허용한다.
+ * 두 번째 이후 정렬은 받쳐줄 복합 인덱스가 없으므로 허용하지 않는다.
+ *
+ * 마지막에 member.id 를 첫 번째 정렬과 같은 방향으로 붙인다. (age, member_id) 인덱스는 역방향 스캔으로 age desc 도 처리한다.
+ * */
+@Component
+public class MemberSortResolver {
+
+    public enum Policy {
+        REJECT, DEGRADE
+    }
+
+    private enum Field {
+        MEMBER_ID("memberId", member.id, false),
+        USERNAME("username", member.username, false),
+        AGE("age", member.age, false),
+        TEAM_NAME("teamName", team.name, true);
+
+        private final String property;
+        private final ComparableExpressionBase<?> path;
+        private final boolean requiresTeamJoin;
+
+        Field(String property, ComparableExpressionBase<?> path, boolean requiresTeamJoin) {
+            this.property = property;
+            this.path = path;
+            this.requiresTeamJoin = requiresTeamJoin;
+        }
+
+        static Field of(String property) {
+            for (Field field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new InvalidSortException(property, "not sortable");
+        }
+    }
+
+    private final Policy policy;
+
+    public MemberSortResolver(@Value("${member.search.sort.policy:REJECT}") Policy policy) {
+        this.policy = policy;
+    }
+
+    public MemberOrder resolve(Sort sort, MemberPredicate predicate) {
+        if (sort.isUnsorted()) {
+            return MemberOrder.UNSORTED;
+        }
+        List<OrderSpecifier<?>> orders = new ArrayList<>(3);
+        boolean teamJoin = false;
+        Order tiebreaker = null;
+        for (Sort.Order order : sort) {
+            Field field = Field.of(order.getProperty());
+            if (!indexed(field, orders.size(), predicate)) {
+                if (policy == Policy.REJECT) {
+                    throw new InvalidSortException(order.getProperty(), "no index supports this order");
+                }
+                continue;
+            }
+            Order direction = order.isAscending() ? Order.ASC : Order.DESC;
+            if (field == Field.MEMBER_ID) {
+                //id 는 유일하므로 뒤의 정렬은 의미가 없다.
+                orders.add(new OrderSpecifier<>(direction, member.id));
+                return new MemberOrder(orders, teamJoin);
+            }
+            orders.add(direction == Order.ASC ? field.path.asc() : field.path.desc());
+            teamJoin |= field.requiresTeamJoin;
+            if (tiebreaker == null) {
+                tiebreaker = direction;
+            }
+        }
+        orders.add(new OrderSpecifier<>(tiebreaker != null ? tiebreaker : Order.ASC, member.id));
+        return new MemberOrder(orders, teamJoin);
+    }
+
+    private static boolean indexed(Field field, int position, MemberPredicate predicate) {
+        if (field == Field.MEMBER_ID || predicate.getUsername() != null) {
+            return true;
+        }
+        if (position > 0) {
+            return false;
+        }
+        boolean teamFilter = predicate.getTeamName() != null;
+        boolean ageFilter = predicate.getAgeGoe() != null || predicate.getAgeLoe() != null;
+        switch (field) {
+            case USERNAME:
+                return !teamFilter && !ageFilter;
+            case AGE:
+                //팀 조건이 있으면 idx_member_team_age, 없으면 idx_member_age 로 나이 조건과 정렬을 같이 처리한다.
+                return true;
+            case TEAM_NAME:
+                return teamFilter;
+            default:
+                return false;
+        }
+    }
+}
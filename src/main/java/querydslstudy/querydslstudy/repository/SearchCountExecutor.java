@@ -0,0 +1,90 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.support.SearchContext;
+import querydslstudy.querydslstudy.support.SlowQueryRecorder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * 페이징 count 쿼리를 컨텐츠 쿼리와 병렬로 실행하기 위한 전용 쓰레드풀
+ * 작업마다 읽기 전용 트랜잭션을 새로 열기 때문에 호출한 쪽과 다른 커넥션에서 실행된다.
+ *
+ * Executor 빈으로 등록하면 스프링 부트의 applicationTaskExecutor 가 빠지므로 빈 내부에 풀을 둔다.
+ * 풀과 큐가 가득 차면 submit 은 RejectedExecutionException 을 던진다. 호출한 쪽은 컨텐츠 조회가 끝난 뒤 run() 으로 직렬 실행한다.
+ * (CallerRunsPolicy 로 호출한 쓰레드에서 바로 실행하면 호출한 쪽 트랜잭션의 커넥션을 잡은 채로 커넥션을 하나 더 기다린다.)
+ *
+ * count 작업은 동시에 pool-size 개까지 커넥션을 쓴다. 컨텐츠 조회가 쓸 커넥션이 남도록
+ * pool-size 는 커넥션 풀(spring.datasource.hikari.maximum-pool-size)보다 작아야 하고, 시작할 때 검사한다.
+ * */
+@Component
+public class SearchCountExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    public SearchCountExecutor(PlatformTransactionManager transactionManager, SlowQueryRecorder slowQueryRecorder,
+                               @Value("${member.search.parallel.pool-size:8}") int poolSize,
+                               @Value("${member.search.parallel.queue-capacity:64}") int queueCapacity,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (poolSize >= connectionPoolSize) {
+            throw new IllegalStateException("member.search.parallel.pool-size(" + poolSize
+                    + ") must be smaller than spring.datasource.hikari.maximum-pool-size(" + connectionPoolSize + ")");
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "member-count-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.slowQueryRecorder = slowQueryRecorder;
+    }
+
+    /*
+     * 느린 count 쿼리도 어떤 검색에서 왔는지 알 수 있게 호출한 쓰레드의 SearchContext 를 넘겨준다.
+     * 풀과 큐가 가득 차면 RejectedExecutionException
+     * */
+    public <T> Future<T> submit(Supplier<T> query) {
+        SearchContext caller = slowQueryRecorder.current();
+        return executor.submit(() -> {
+            SearchContext previous = caller != null
+                    ? slowQueryRecorder.enter(caller.getMethod(), caller.getCondition())
+                    : slowQueryRecorder.current();
+            try {
+                return readOnlyTransaction.execute(status -> query.get());
+            } finally {
+                slowQueryRecorder.exit(previous);
+            }
+        });
+    }
+
+    /*
+     * 호출한 쓰레드에서 새 읽기 전용 트랜잭션으로 실행한다(submit 이 거절됐을 때).
+     * */
+    public <T> T run(Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> query.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
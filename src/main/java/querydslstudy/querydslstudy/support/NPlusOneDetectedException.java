@@ -0,0 +1,17 @@
+package querydslstudy.querydslstudy.support;
+
+import java.util.Map;
+
+public class NPlusOneDetectedException extends IllegalStateException {
+
+    private final Map<String, Integer> repeatedStatements;
+
+    public NPlusOneDetectedException(Map<String, Integer> repeatedStatements) {
+        super("N+1 query suspected: " + repeatedStatements);
+        this.repeatedStatements = repeatedStatements;
+    }
+
+    public Map<String, Integer> getRepeatedStatements() {
+        return repeatedStatements;
+    }
+}
@@ -0,0 +1,62 @@
+package querydslstudy.querydslstudy.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/*
+ * 요청마다 실행된 쿼리 수를 세고 N+1 로 의심되면 경고 로그를 남긴다.
+ * 응답은 이미 나간 뒤라 실패시키지는 않는다. 테스트에서는 QueryCountScope.assertNoNPlusOne() 을 쓴다.
+ * */
+@Slf4j
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".scope";
+
+    private final QueryCounter queryCounter;
+    private final int nPlusOneThreshold;
+    private final int maxQueries;
+
+    public QueryCountInterceptor(QueryCounter queryCounter, int nPlusOneThreshold, int maxQueries) {
+        this.queryCounter = queryCounter;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, queryCounter.start());
+        return true;
+    }
+
+    /*
+     * 비동기 처리(StreamingResponseBody 등)는 다른 쓰레드에서 끝나므로 여기서 현재 쓰레드의 scope 를 닫는다.
+     * */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountScope scope = (QueryCountScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            scope.close();
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCountScope scope = (QueryCountScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+
+        Map<String, Integer> repeated = scope.repeatedSelects(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            log.warn("N+1 query suspected. uri={}, queries={}, repeated={}", request.getRequestURI(), scope.getCount(), repeated);
+        } else if (scope.getCount() > maxQueries) {
+            log.warn("too many queries. uri={}, queries={}", request.getRequestURI(), scope.getCount());
+        }
+    }
+}
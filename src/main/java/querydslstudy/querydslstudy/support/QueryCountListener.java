@@ -0,0 +1,23 @@
+package querydslstudy.querydslstudy.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/*
+ * p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다.
+ * */
+@Component
+@RequiredArgsConstructor
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    private final QueryCounter queryCounter;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        queryCounter.record(statementInformation.getSql());
+    }
+}
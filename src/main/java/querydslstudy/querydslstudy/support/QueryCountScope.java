@@ -0,0 +1,98 @@
+package querydslstudy.querydslstudy.support;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * 같은 SQL(바인딩 전 ? 형태)이 threshold 번 이상 반복되면 N+1 로 판단한다.
+ * 중첩된 scope 에서 실행된 SQL 은 바깥 scope 에도 함께 기록된다.
+ *
+ * 기록할 때는 받은 SQL 문자열 그대로 센다(하이버네이트는 같은 쿼리에 같은 문자열을 쓴다).
+ * 주석/공백 정규화는 판단할 때, 실행 수가 threshold 이상일 때만 서로 다른 문자열마다 한 번씩 한다.
+ * */
+public class QueryCountScope implements AutoCloseable {
+
+    public static final int DEFAULT_N_PLUS_ONE_THRESHOLD = 3;
+
+    private final QueryCountScope parent;
+    private final QueryCounter counter;
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+    private int count;
+
+    QueryCountScope(QueryCountScope parent, QueryCounter counter) {
+        this.parent = parent;
+        this.counter = counter;
+    }
+
+    void record(String sql) {
+        statements.merge(sql, 1, Integer::sum);
+        count++;
+        if (parent != null) {
+            parent.record(sql);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    QueryCountScope getParent() {
+        return parent;
+    }
+
+    /*
+     * 정규화한 SQL 별 실행 수
+     * */
+    public Map<String, Integer> getStatements() {
+        Map<String, Integer> normalized = new LinkedHashMap<>();
+        statements.forEach((sql, executions) -> normalized.merge(normalize(sql), executions, Integer::sum));
+        return normalized;
+    }
+
+    /*
+     * threshold 번 이상 반복된 select 문
+     * */
+    public Map<String, Integer> repeatedSelects(int threshold) {
+        if (count < threshold) {
+            return Collections.emptyMap();
+        }
+        return getStatements().entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .filter(entry -> entry.getKey().startsWith("select"))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public void assertNoNPlusOne() {
+        assertNoNPlusOne(DEFAULT_N_PLUS_ONE_THRESHOLD);
+    }
+
+    public void assertNoNPlusOne(int threshold) {
+        Map<String, Integer> repeated = repeatedSelects(threshold);
+        if (!repeated.isEmpty()) {
+            throw new NPlusOneDetectedException(repeated);
+        }
+    }
+
+    public void assertCountAtMost(int maxQueries) {
+        if (count > maxQueries) {
+            throw new IllegalStateException("expected at most " + maxQueries + " queries but " + count + " executed: " + getStatements());
+        }
+    }
+
+    @Override
+    public void close() {
+        counter.end(this);
+    }
+
+    /*
+     * use_sql_comments 로 붙는 주석과 공백 차이를 없애서 같은 쿼리는 같은 키가 되게 한다.
+     * */
+    static String normalize(String sql) {
+        return sql.replaceAll("(?s)/\\*.*?\\*/", "")
+                .replaceAll("\\s+", " ")
+                .trim()
+                .toLowerCase();
+    }
+}
@@ -0,0 +1,41 @@
+package querydslstudy.querydslstudy.support;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * 쓰레드(요청) 단위로 실행된 SQL 을 센다.
+ * QueryCountListener(p6spy)가 record() 를 호출하고, 범위는 start() 로 연 QueryCountScope 가 정한다.
+ *
+ * try (QueryCountScope scope = queryCounter.start()) {
+ *     ...
+ *     scope.assertNoNPlusOne();
+ * }
+ * */
+@Component
+public class QueryCounter {
+
+    private final ThreadLocal<QueryCountScope> current = new ThreadLocal<>();
+
+    public QueryCountScope start() {
+        QueryCountScope scope = new QueryCountScope(current.get(), this);
+        current.set(scope);
+        return scope;
+    }
+
+    public void record(String sql) {
+        QueryCountScope scope = current.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    void end(QueryCountScope scope) {
+        if (current.get() == scope) {
+            if (scope.getParent() != null) {
+                current.set(scope.getParent());
+            } else {
+                current.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package querydslstudy.querydslstudy.support;
+
+import lombok.Getter;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+/*
+ * 지금 실행 중인 검색 메서드와 검색조건
+ * MemberSearchMetrics 가 메서드 진입 시 SlowQueryRecorder 에 걸어두고, 느린 SQL 이 어디서 왔는지 남기는 데 쓴다.
+ * */
+@Getter
+public class SearchContext {
+
+    private final String method;
+    private final MemberSearchCondition condition;
+
+    public SearchContext(String method, MemberSearchCondition condition) {
+        this.method = method;
+        this.condition = condition;
+    }
+}
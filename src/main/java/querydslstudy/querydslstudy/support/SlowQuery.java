@@ -0,0 +1,30 @@
+package querydslstudy.querydslstudy.support;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+public class SlowQuery {
+
+    private final Instant timestamp;
+    private final double elapsedMillis;
+    private final long rows;
+    private final String sql;
+    private final String method;
+    private final String condition;
+    private final String thread;
+    private final String error;
+
+    public SlowQuery(Instant timestamp, double elapsedMillis, long rows, String sql,
+                     String method, String condition, String thread, String error) {
+        this.timestamp = timestamp;
+        this.elapsedMillis = elapsedMillis;
+        this.rows = rows;
+        this.sql = sql;
+        this.method = method;
+        this.condition = condition;
+        this.thread = thread;
+        this.error = error;
+    }
+}
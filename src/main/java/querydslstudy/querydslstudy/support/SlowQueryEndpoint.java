@@ -0,0 +1,31 @@
+package querydslstudy.querydslstudy.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * /actuator/slowqueries
+ * GET 은 최근 느린 SQL 목록, DELETE 는 비우기
+ * */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder recorder;
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return recorder.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
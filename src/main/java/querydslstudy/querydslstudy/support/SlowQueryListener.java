@@ -0,0 +1,122 @@
+package querydslstudy.querydslstudy.support;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/*
+ * p6spy 이벤트로 SQL 실행시간과 row 수를 재서 SlowQueryRecorder 에 넘긴다.
+ *
+ * select 는 executeQuery 시간에 ResultSet.next() 시간을 더해서 ResultSet 이 닫힐 때 판단한다.
+ * 그래야 fetch 가 오래 걸리는 쿼리와 읽은 row 수를 함께 알 수 있다.
+ * 쓰레드마다 측정 객체 하나를 재사용하므로 SQL 마다 객체를 만들지 않는다.
+ * 바인딩 값이 들어간 SQL 은 느린 경우에만 만든다.
+ * */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryListener extends JdbcEventListener {
+
+    private final SlowQueryRecorder recorder;
+    private final ThreadLocal<Pending> pending = ThreadLocal.withInitial(Pending::new);
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        startQuery(statementInformation, timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        startQuery(statementInformation, timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        Pending current = pending.get();
+        if (current.statement == resultSetInformation.getStatementInformation()) {
+            current.elapsedNanos += timeElapsedNanos;
+            if (hasNext) {
+                current.rows++;
+            }
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        Pending current = pending.get();
+        if (current.statement == resultSetInformation.getStatementInformation()) {
+            finish(current);
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        check(statementInformation, timeElapsedNanos, rowCount, e);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        check(statementInformation, timeElapsedNanos, rowCount, e);
+    }
+
+    @Override
+    public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        check(statementInformation, timeElapsedNanos, -1, e);
+    }
+
+    @Override
+    public void onAfterExecute(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        check(statementInformation, timeElapsedNanos, -1, e);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        long rows = 0;
+        if (updateCounts != null) {
+            for (int updateCount : updateCounts) {
+                rows += Math.max(updateCount, 0);
+            }
+        }
+        check(statementInformation, timeElapsedNanos, rows, e);
+    }
+
+    private void startQuery(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Pending current = pending.get();
+        //이전 ResultSet 을 닫기 전에 다른 쿼리가 실행되면(스트리밍 중 조회 등) 이전 것은 여기서 마감한다.
+        if (current.statement != null) {
+            finish(current);
+        }
+        if (e != null) {
+            check(statementInformation, timeElapsedNanos, -1, e);
+            return;
+        }
+        current.statement = statementInformation;
+        current.elapsedNanos = timeElapsedNanos;
+        current.rows = 0;
+    }
+
+    private void finish(Pending current) {
+        StatementInformation statement = current.statement;
+        current.statement = null;
+        check(statement, current.elapsedNanos, current.rows, null);
+    }
+
+    private void check(StatementInformation statementInformation, long elapsedNanos, long rows, SQLException e) {
+        if (recorder.isSlow(elapsedNanos)) {
+            recorder.record(elapsedNanos, rows, statementInformation.getSqlWithValues(),
+                    e != null ? e.getMessage() : null);
+        }
+    }
+
+    private static class Pending {
+        private StatementInformation statement;
+        private long elapsedNanos;
+        private long rows;
+    }
+}
@@ -0,0 +1,98 @@
+package querydslstudy.querydslstudy.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * threshold 이상 걸린 SQL 만 고정 크기 링버퍼에 남긴다. 가득 차면 오래된 것부터 덮어쓴다.
+ * sample-rate 로 느린 SQL 중 일부만 남길 수 있다(장애 시 기록 비용이 몰리지 않게).
+ *
+ * 기록할 때 어떤 검색 메서드/조건에서 실행됐는지 알 수 있도록 쓰레드별 SearchContext 를 들고 있다.
+ * */
+@Component
+public class SlowQueryRecorder {
+
+    private final ThreadLocal<SearchContext> context = new ThreadLocal<>();
+    private final AtomicReferenceArray<SlowQuery> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final long thresholdNanos;
+    private final double sampleRate;
+
+    public SlowQueryRecorder(@Value("${member.slow-query.threshold:200ms}") Duration threshold,
+                             @Value("${member.slow-query.sample-rate:1.0}") double sampleRate,
+                             @Value("${member.slow-query.capacity:256}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    /*
+     * 이전 context 를 돌려준다. 끝날 때 exit() 에 그대로 넘겨서 복원한다.
+     * */
+    public SearchContext enter(String method, MemberSearchCondition condition) {
+        SearchContext previous = context.get();
+        context.set(new SearchContext(method, condition));
+        return previous;
+    }
+
+    public void exit(SearchContext previous) {
+        if (previous == null) {
+            context.remove();
+        } else {
+            context.set(previous);
+        }
+    }
+
+    public SearchContext current() {
+        return context.get();
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void record(long elapsedNanos, long rows, String sql, String error) {
+        SearchContext current = context.get();
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), elapsedNanos / 1_000_000.0, rows, sql,
+                current != null ? current.getMethod() : null,
+                current != null && current.getCondition() != null ? current.getCondition().toString() : null,
+                Thread.currentThread().getName(),
+                error);
+        long index = sequence.getAndIncrement();
+        buffer.set((int) (index % buffer.length()), slowQuery);
+    }
+
+    /*
+     * 최근 것부터
+     * */
+    public List<SlowQuery> recent() {
+        List<SlowQuery> result = new ArrayList<>();
+        long last = sequence.get();
+        long first = Math.max(0, last - buffer.length());
+        for (long i = last - 1; i >= first; i--) {
+            SlowQuery slowQuery = buffer.get((int) (i % buffer.length()));
+            if (slowQuery != null) {
+                result.add(slowQuery);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+}
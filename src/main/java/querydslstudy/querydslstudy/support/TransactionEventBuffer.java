@@ -0,0 +1,81 @@
+package querydslstudy.querydslstudy.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * 트랜잭션 안에서 발생한 엔티티 이벤트를 모아서 트랜잭션이 끝날 때 한 번에 넘긴다.
+ *
+ * @TransactionalEventListener 는 이벤트마다 synchronization 을 하나씩 등록하고 트랜잭션이 끝날 때까지 이벤트를 붙잡아둔다.
+ * 대량 적재처럼 한 트랜잭션에서 엔티티를 N 개 저장하면 flush/clear 를 해도 메모리가 N 에 비례해서 늘고, 종료 시 리스너가 N 번 호출된다.
+ * 여기서는 트랜잭션마다 synchronization 을 하나만 등록하고, maxEvents 를 넘으면 이벤트는 버리고 overflow 로만 표시한다.
+ *
+ * synchronization 목록은 REQUIRES_NEW 등으로 트랜잭션이 중단될 때 같이 보관되므로 안쪽 트랜잭션 이벤트는 안쪽 배치에 모인다.
+ * 트랜잭션(synchronization)이 없으면 바로 넘긴다.
+ * */
+public class TransactionEventBuffer<E> {
+
+    public interface Handler<E> {
+
+        /*
+         * events: 모은 이벤트 (overflow 면 일부만 들어있다), committed: 커밋으로 끝났는지
+         * */
+        void afterCompletion(List<E> events, boolean overflow, boolean committed);
+    }
+
+    private final int maxEvents;
+    private final Handler<E> handler;
+
+    public TransactionEventBuffer(int maxEvents, Handler<E> handler) {
+        this.maxEvents = maxEvents;
+        this.handler = handler;
+    }
+
+    public void add(E event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            handler.afterCompletion(Collections.singletonList(event), false, true);
+            return;
+        }
+        current().add(event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Batch current() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionEventBuffer.Batch
+                    && ((Batch) synchronization).owner() == this) {
+                return (Batch) synchronization;
+            }
+        }
+        Batch batch = new Batch();
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch;
+    }
+
+    private class Batch implements TransactionSynchronization {
+
+        private final List<E> events = new ArrayList<>();
+        private boolean overflow;
+
+        TransactionEventBuffer<E> owner() {
+            return TransactionEventBuffer.this;
+        }
+
+        void add(E event) {
+            if (events.size() < maxEvents) {
+                events.add(event);
+            } else {
+                overflow = true;
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            handler.afterCompletion(events, overflow, status == STATUS_COMMITTED);
+        }
+    }
+}
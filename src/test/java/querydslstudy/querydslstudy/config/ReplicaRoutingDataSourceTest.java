@@ -0,0 +1,92 @@
+package querydslstudy.querydslstudy.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 서로 다른 H2 메모리 DB 두개를 primary, replica 로 두고 어느 쪽으로 라우팅되는지 확인한다.
+ * */
+class ReplicaRoutingDataSourceTest {
+
+    DataSource primary;
+    DataSource replica;
+
+    @BeforeEach
+    public void before() {
+        primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        new JdbcTemplate(replica).execute("create table replica_lag(seconds double)");
+        new JdbcTemplate(replica).execute("insert into replica_lag values (0)");
+    }
+
+    @AfterEach
+    public void after() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        new JdbcTemplate(primary).execute("drop all objects");
+        new JdbcTemplate(replica).execute("drop all objects");
+    }
+
+    @Test
+    public void routeByReadOnly() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag",
+                Duration.ofSeconds(5), Duration.ofSeconds(5));
+        monitor.check();
+        ReplicaRoutingDataSource routing = routing(monitor);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(routing));
+
+        assertThat(currentDatabase(jdbcTemplate)).isEqualToIgnoringCase("routing_primary");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(currentDatabase(jdbcTemplate)).isEqualToIgnoringCase("routing_replica");
+
+        assertThat(routing.getPrimaryRoutes()).isEqualTo(1);
+        assertThat(routing.getReplicaRoutes()).isEqualTo(1);
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaLags() {
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 30");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag",
+                Duration.ofSeconds(5), Duration.ofSeconds(5));
+        monitor.check();
+        ReplicaRoutingDataSource routing = routing(monitor);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(routing));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(monitor.isAvailable()).isFalse();
+        assertThat(currentDatabase(jdbcTemplate)).isEqualToIgnoringCase("routing_primary");
+        assertThat(routing.getReplicaFallbacks()).isEqualTo(1);
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaLagMonitor monitor) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.Route.PRIMARY, primary);
+        targets.put(ReplicaRoutingDataSource.Route.REPLICA, replica);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(monitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private String currentDatabase(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+
+    private DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,119 @@
+package querydslstudy.querydslstudy.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+import querydslstudy.querydslstudy.repository.BulkProgressListener;
+import querydslstudy.querydslstudy.repository.MemberBulkUpdate;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * cache 프로파일: 2차 캐시 hit, 벌크 update 후 evict, /cache/stats
+ * 2차 캐시는 커밋된 값만 담으므로 데이터는 트랜잭션을 나눠서 커밋하고 끝나면 지운다.
+ * */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("cache")
+class CacheStatsControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        memberId = transactionTemplate.execute(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member member = new Member("cache1", 10, team);
+            em.persist(member);
+            return member.getId();
+        });
+        emf.getCache().evictAll();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.execute(status -> {
+            em.createQuery("delete from Member m where m.username like 'cache%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'cacheTeam'").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    public void findByIdHitsOnSecondLookup() {
+        memberJpaRepository.findById(memberId);
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        memberJpaRepository.findById(memberId);
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    public void bulkUpdateEvicts() {
+        memberJpaRepository.findById(memberId);
+        assertThat(emf.getCache().contains(Member.class, memberId)).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        memberRepository.bulkUpdate(condition, MemberBulkUpdate.addAge(1), BulkProgressListener.NONE);
+
+        assertThat(emf.getCache().contains(Member.class, memberId)).isFalse();
+        assertThat(memberJpaRepository.findById(memberId).get().getAge()).isEqualTo(11);
+    }
+
+    @Test
+    public void stats() throws Exception {
+        memberJpaRepository.findById(memberId);
+        memberJpaRepository.findById(memberId);
+        memberJpaRepository.findByUsername("cache1");
+
+        mockMvc.perform(get("/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.region == 'default-query-results-region')]").exists())
+                .andExpect(jsonPath("$[?(@.region == 'querydslstudy.querydslstudy.entity.Member')].hitRatio").exists());
+    }
+}
@@ -0,0 +1,72 @@
+package querydslstudy.querydslstudy.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnarWriterTest {
+
+    List<MemberTeamDto> rows = Arrays.asList(
+            new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+            new MemberTeamDto(2L, "member2", 20, 100L, "teamA"),
+            new MemberTeamDto(3L, "member3", 30, 200L, "teamB"),
+            new MemberTeamDto(4L, "member4", 40, null, null));
+
+    @Test
+    public void columnarJson() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            MemberColumnarWriter.write(generator, rows);
+        }
+
+        JsonNode node = objectMapper.readTree(out.toByteArray());
+        assertThat(node.get("size").asInt()).isEqualTo(4);
+        assertThat(node.at("/teams/name").toString()).isEqualTo("[\"teamA\",\"teamB\"]");
+        assertThat(node.at("/teams/id").toString()).isEqualTo("[100,200]");
+        assertThat(node.get("team").toString()).isEqualTo("[0,0,1,-1]");
+        assertThat(node.get("username").toString()).isEqualTo("[\"member1\",\"member2\",\"member3\",\"member4\"]");
+        //행마다 필드 이름과 팀 이름을 반복하는 기본 형식보다 작다.
+        assertThat(out.size()).isLessThan(objectMapper.writeValueAsBytes(rows).length);
+    }
+
+    @Test
+    public void columnarSmile() throws IOException {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = smileMapper.getFactory().createGenerator(out)) {
+            MemberColumnarWriter.write(generator, rows);
+        }
+
+        JsonNode node = smileMapper.readTree(out.toByteArray());
+        assertThat(node.get("age").toString()).isEqualTo("[10,20,30,40]");
+    }
+
+    @Test
+    public void canWriteOnlyMemberTeamDtoList() {
+        MemberColumnarMessageConverter converter = new MemberColumnarMessageConverter();
+
+        assertThat(converter.canWrite(new TypeReference<List<MemberTeamDto>>() {
+        }.getType(), List.class, MemberColumnarMessageConverter.COLUMNAR_JSON)).isTrue();
+        assertThat(converter.canWrite(new TypeReference<List<String>>() {
+        }.getType(), List.class, MemberColumnarMessageConverter.COLUMNAR_JSON)).isFalse();
+        assertThat(converter.canWrite(new TypeReference<List<MemberTeamDto>>() {
+        }.getType(), List.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(new TypeReference<List<MemberTeamDto>>() {
+        }.getType(), List.class, MediaType.ALL)).isFalse();
+        assertThat(converter.canWrite(new TypeReference<List<MemberTeamDto>>() {
+        }.getType(), List.class, null)).isFalse();
+    }
+}
@@ -0,0 +1,85 @@
+package querydslstudy.querydslstudy.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * /v1/members 응답 형식 협상: 컬럼 형식은 Accept 로 명시했을 때만 나간다.
+ * */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("mvcTeam");
+        em.persist(team);
+        em.persist(new Member("mvc1", 10, team));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void noAcceptIsJsonArray() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "mvc1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].username").value("mvc1"));
+    }
+
+    @Test
+    public void wildcardAcceptIsJsonArray() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "mvc1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].username").value("mvc1"));
+    }
+
+    @Test
+    public void jsonAcceptIsJsonArray() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "mvc1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].teamName").value("mvcTeam"));
+    }
+
+    @Test
+    public void columnarJson() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "mvc1")
+                .accept(MemberColumnarMessageConverter.COLUMNAR_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberColumnarMessageConverter.COLUMNAR_JSON))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.username[0]").value("mvc1"));
+    }
+
+    @Test
+    public void columnarSmile() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "mvc1")
+                .accept(MemberColumnarMessageConverter.COLUMNAR_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberColumnarMessageConverter.COLUMNAR_SMILE));
+    }
+}
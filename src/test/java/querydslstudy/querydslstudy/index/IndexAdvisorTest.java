@@ -0,0 +1,70 @@
+package querydslstudy.querydslstudy.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.dto.IndexAdvice;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+import querydslstudy.querydslstudy.repository.MemberSearchShape;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void adviseRecordedShapes() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        memberRepository.search(condition);
+
+        List<IndexAdvice> advice = indexAdvisor.advise();
+
+        IndexAdvice username = advice.stream()
+                .filter(a -> a.getShape().equals("username"))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        assertThat(username.getExecutions()).isGreaterThanOrEqualTo(1);
+        //검색 메서드가 실제로 실행한 SQL 을 EXPLAIN 한다(다른 테스트가 먼저 남긴 샘플일 수 있다).
+        assertThat(username.getMethod()).startsWith("Member");
+        assertThat(username.getSql()).containsIgnoringCase("username");
+        //엔티티에 선언한 idx_member_username 으로 찾으므로 추천할 인덱스가 없다.
+        assertThat(username.getPlan()).containsIgnoringCase("idx_member_username");
+        assertThat(username.getMissingIndexes()).isEmpty();
+    }
+
+    @Test
+    public void scannedTables() {
+        String h2 = "SELECT M.MEMBER_ID FROM PUBLIC.MEMBER M /* PUBLIC.MEMBER.tableScan */ "
+                + "LEFT OUTER JOIN PUBLIC.TEAM T /* PUBLIC.PRIMARY_KEY_27: TEAM_ID = M.TEAM_ID */ ON 1=1";
+        String postgres = "Hash Left Join  (cost=1.04..2.19 rows=1 width=50)\n"
+                + "  ->  Seq Scan on member m  (cost=0.00..1.12 rows=1 width=26)\n"
+                + "  ->  Hash  (cost=1.02..1.02 rows=2 width=24)";
+
+        assertThat(IndexAdvisor.scannedTables(h2)).containsExactly("member");
+        assertThat(IndexAdvisor.scannedTables(postgres)).containsExactly("member");
+    }
+
+    @Test
+    public void candidates() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        assertThat(IndexAdvisor.candidates(MemberSearchShape.of(condition)))
+                .extracting(IndexAdvisor.Candidate::ddl)
+                .containsExactly("create index idx_team_name on team (name)",
+                        "create index idx_member_team_age on member (team_id, age)");
+    }
+}
@@ -0,0 +1,38 @@
+package querydslstudy.querydslstudy.loader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Test
+    public void load() {
+        BulkLoadResult result = memberBulkLoader.load(Arrays.asList("teamA", "teamB", "teamC"), 1000);
+
+        assertThat(result.getRows()).isEqualTo(1003);
+
+        Long memberCount = em.createQuery("select count(m) from Member m where m.team is not null", Long.class)
+                .getSingleResult();
+        assertThat(memberCount).isEqualTo(1000);
+
+        Long teamCCount = em.createQuery("select count(m) from Member m where m.team.name = :name", Long.class)
+                .setParameter("name", "teamC")
+                .getSingleResult();
+        assertThat(teamCCount).isEqualTo(333);
+    }
+}
@@ -0,0 +1,100 @@
+package querydslstudy.querydslstudy.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+import querydslstudy.querydslstudy.repository.MemberJpaRepository;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+    }
+
+    @Test
+    public void searchTimerAndRows() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        memberRepository.search(condition);
+        memberJpaRepository.searchByWhere(condition);
+
+        Timer timer = registry.find("member.search")
+                .tags("repository", "MemberRepositoryImpl", "method", "search", "shape", "teamName+ageGoe")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(registry.find("member.search.rows")
+                .tags("method", "search", "shape", "teamName+ageGoe")
+                .summary().totalAmount()).isGreaterThanOrEqualTo(2);
+        assertThat(registry.find("member.search")
+                .tags("repository", "MemberJpaRepository", "method", "searchByWhere")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    public void statementsPerCall() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        DistributionSummary before = registry.find("member.search.statements")
+                .tags("repository", "MemberRepositoryImpl", "method", "searchPageSimple", "shape", "username")
+                .summary();
+        long calls = before != null ? before.count() : 0;
+        double total = before != null ? before.totalAmount() : 0;
+
+        //컨텐츠 + count
+        memberRepository.searchPageSimple(condition, PageRequest.of(0, 1));
+
+        DistributionSummary after = registry.get("member.search.statements")
+                .tags("repository", "MemberRepositoryImpl", "method", "searchPageSimple", "shape", "username")
+                .summary();
+        assertThat(after.count()).isEqualTo(calls + 1);
+        assertThat(after.totalAmount() - total).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void countSkipped() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        double before = registry.get("member.search.count").tag("outcome", "skipped").counter().count();
+
+        //첫 페이지가 페이지 크기보다 작으므로 count 쿼리가 필요없다.
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        assertThat(registry.get("member.search.count").tag("outcome", "skipped").counter().count())
+                .isEqualTo(before + 1);
+    }
+}
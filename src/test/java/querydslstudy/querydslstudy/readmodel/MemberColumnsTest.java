@@ -0,0 +1,133 @@
+package querydslstudy.querydslstudy.readmodel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    MemberColumns columns;
+
+    @BeforeEach
+    public void before() {
+        //배열과 id 맵이 커지는 경우도 지나가도록 작은 크기로 시작한다.
+        columns = new MemberColumns(0);
+        columns.upsertTeam(1L, "teamA");
+        columns.upsertTeam(2L, "teamB");
+        for (long id = 1; id <= 40; id++) {
+            columns.upsertMember(id, "member" + id, (int) (id % 10) * 10, id % 2 == 0 ? 2L : 1L);
+        }
+    }
+
+    @Test
+    public void searchAll() {
+        assertThat(columns.search(null, null, null, null)).hasSize(40);
+        assertThat(columns.rows()).isEqualTo(40);
+    }
+
+    @Test
+    public void searchByAgeRange() {
+        assertThat(columns.search(null, null, 30, 40)).extracting("memberId")
+                .containsExactly(3L, 4L, 13L, 14L, 23L, 24L, 33L, 34L);
+        assertThat(columns.search(null, null, null, 0)).extracting("memberId")
+                .containsExactly(10L, 20L, 30L, 40L);
+        assertThat(columns.search(null, null, 95, null)).isEmpty();
+        assertThat(columns.search(null, null, 40, 30)).isEmpty();
+    }
+
+    @Test
+    public void searchByTeamAndAge() {
+        assertThat(columns.search(null, "teamB", 30, 40)).extracting("memberId")
+                .containsExactly(4L, 14L, 24L, 34L);
+        assertThat(columns.search(null, "teamB", 30, 40)).extracting("teamName").containsOnly("teamB");
+        assertThat(columns.search(null, "teamC", null, null)).isEmpty();
+    }
+
+    @Test
+    public void searchByUsername() {
+        assertThat(columns.search("member7", null, null, null)).extracting("memberId").containsExactly(7L);
+        assertThat(columns.search("member7", "teamB", null, null)).isEmpty();
+        assertThat(columns.search("unknown", null, null, null)).isEmpty();
+    }
+
+    @Test
+    public void updateMovesAgeIndexAndTeamBitmap() {
+        columns.upsertMember(3L, "renamed", 90, 2L);
+
+        assertThat(columns.search(null, null, 30, 30)).extracting("memberId").doesNotContain(3L);
+        assertThat(columns.search(null, "teamB", 90, 90)).extracting("memberId").containsExactly(3L, 9L);
+        assertThat(columns.search(null, "teamA", null, null)).extracting("memberId").doesNotContain(3L);
+        assertThat(columns.search("renamed", null, null, null)).extracting("age").containsExactly(90);
+        assertThat(columns.rows()).isEqualTo(40);
+    }
+
+    @Test
+    public void removeMember() {
+        columns.removeMember(4L);
+        columns.removeMember(999L);
+
+        assertThat(columns.search(null, null, 40, 40)).extracting("memberId").containsExactly(14L, 24L, 34L);
+        assertThat(columns.search("member4", null, null, null)).isEmpty();
+        assertThat(columns.rows()).isEqualTo(39);
+
+        columns.upsertMember(4L, "member4", 40, 2L);
+        assertThat(columns.search(null, "teamB", 40, 40)).extracting("memberId").containsExactly(4L, 14L, 24L, 34L);
+    }
+
+    @Test
+    public void teamRenameAndMemberWithoutTeam() {
+        columns.upsertTeam(1L, "teamC");
+        columns.upsertMember(41L, "member41", 10, null);
+        columns.upsertMember(42L, "member42", 10, 3L);
+
+        assertThat(columns.search(null, "teamA", null, null)).isEmpty();
+        assertThat(columns.search(null, "teamC", null, null)).hasSize(20);
+        assertThat(columns.search("member41", null, null, null).get(0).getTeamId()).isNull();
+        //아직 팀 이벤트가 오지 않은 팀은 이름 없이 id 만 있다.
+        assertThat(columns.search("member42", null, null, null).get(0).getTeamId()).isEqualTo(3L);
+        assertThat(columns.search("member42", null, null, null).get(0).getTeamName()).isNull();
+    }
+
+    @Test
+    public void repeatedRenameStaysBounded() {
+        int compactions = 0;
+        for (int i = 0; i < 10_000; i++) {
+            columns.upsertMember(1L, "renamed" + i, 10, 1L);
+            //MemberReadModel 이 변경을 반영한 뒤에 하는 것과 같다.
+            if (columns.needsCompaction()) {
+                columns = columns.compact();
+                compactions++;
+            }
+        }
+
+        assertThat(compactions).isGreaterThan(0);
+        //죽은 회원명은 MIN_DEAD_ENTRIES 근처까지만 쌓인다(사전 항목 하나에 100 바이트 남짓).
+        assertThat(columns.estimatedBytes()).isLessThan(MemberColumns.MIN_DEAD_ENTRIES * 200L + 10_000);
+        assertThat(columns.rows()).isEqualTo(40);
+        assertThat(columns.search("renamed9999", "teamA", null, null)).extracting("memberId").containsExactly(1L);
+        assertThat(columns.search("member1", null, null, null)).isEmpty();
+    }
+
+    @Test
+    public void removedSlotsAreCompacted() {
+        for (long id = 41; id < 41 + MemberColumns.MIN_DEAD_ENTRIES; id++) {
+            columns.upsertMember(id, "temp" + id, 50, 2L);
+        }
+        assertThat(columns.needsCompaction()).isFalse();
+        for (long id = 41; id < 41 + MemberColumns.MIN_DEAD_ENTRIES; id++) {
+            columns.removeMember(id);
+        }
+        assertThat(columns.needsCompaction()).isTrue();
+        long bytes = columns.estimatedBytes();
+
+        MemberColumns compacted = columns.compact();
+
+        assertThat(compacted.needsCompaction()).isFalse();
+        assertThat(compacted.estimatedBytes()).isLessThan(bytes);
+        assertThat(compacted.rows()).isEqualTo(40);
+        assertThat(compacted.search(null, "teamB", 30, 40)).extracting("memberId")
+                .containsExactly(4L, 14L, 24L, 34L);
+        assertThat(compacted.search("temp41", null, null, null)).isEmpty();
+    }
+}
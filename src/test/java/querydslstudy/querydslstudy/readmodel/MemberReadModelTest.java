@@ -0,0 +1,130 @@
+package querydslstudy.querydslstudy.readmodel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+import querydslstudy.querydslstudy.repository.BulkProgressListener;
+import querydslstudy.querydslstudy.repository.MemberBulkUpdate;
+import querydslstudy.querydslstudy.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 변경은 커밋 후에 반영되므로 데이터를 커밋하고 끝나면 직접 지운다.
+ * */
+@SpringBootTest(properties = "member.read-model.enabled=true")
+class MemberReadModelTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberReadModel readModel;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Team readTeam;
+
+    @BeforeEach
+    public void before() throws InterruptedException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readTeam = transactionTemplate.execute(status -> {
+            Team team = new Team("readTeam");
+            em.persist(team);
+            em.persist(new Member("read1", 10, team));
+            em.persist(new Member("read2", 20, team));
+            return team;
+        });
+        awaitReady();
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        transactionTemplate.execute(status -> {
+            em.createQuery("delete from Member m where m.username like 'read%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'readTeam%'").executeUpdate();
+            return null;
+        });
+        readModel.requestRebuild();
+        awaitReady();
+    }
+
+    @Test
+    public void sameResultAsDatabase() {
+        MemberSearchCondition condition = teamCondition();
+        condition.setAgeGoe(15);
+
+        assertThat(search(condition)).isEqualTo(memberRepository.search(condition));
+        assertThat(search(condition)).extracting("username").containsExactly("read2");
+    }
+
+    @Test
+    public void applyCommittedChanges() {
+        transactionTemplate.execute(status -> {
+            em.persist(new Member("read3", 30, em.find(Team.class, readTeam.getId())));
+            em.find(Team.class, readTeam.getId()).setName("readTeamRenamed");
+            return null;
+        });
+
+        MemberSearchCondition renamed = new MemberSearchCondition();
+        renamed.setTeamName("readTeamRenamed");
+        assertThat(search(teamCondition())).isEmpty();
+        assertThat(search(renamed)).extracting("username").containsExactly("read1", "read2", "read3");
+    }
+
+    @Test
+    public void ignoreRolledBackChanges() {
+        transactionTemplate.execute(status -> {
+            em.persist(new Member("read4", 40, em.find(Team.class, readTeam.getId())));
+            em.flush();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(search(teamCondition())).extracting("username").containsExactly("read1", "read2");
+    }
+
+    @Test
+    public void rebuildAfterBulkChange() throws InterruptedException {
+        MemberSearchCondition condition = teamCondition();
+        memberRepository.bulkUpdate(condition, MemberBulkUpdate.addAge(1),
+                BulkProgressListener.NONE);
+
+        awaitReady();
+        assertThat(search(condition)).extracting("age").containsExactly(11, 21);
+    }
+
+    private List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return readModel.search(condition).orElseThrow(IllegalStateException::new);
+    }
+
+    private MemberSearchCondition teamCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("readTeam");
+        return condition;
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!readModel.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(readModel.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,123 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.dto.BulkMutationResult;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.bulk-mutation.chunk-size=2")
+@Transactional
+class MemberBulkMutationTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    Member first;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        //teamA 회원의 id 가 연속되도록 먼저 저장한다.
+        first = new Member("bulkA0", 10, teamA);
+        em.persist(first);
+        for (int i = 1; i < 5; i++) {
+            em.persist(new Member("bulkA" + i, 10 + i, teamA));
+        }
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("bulkB" + i, 20 + i, teamB));
+        }
+    }
+
+    @Test
+    public void bulkUpdate() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<String> progress = new ArrayList<>();
+
+        BulkMutationResult result = memberRepository.bulkUpdate(condition,
+                MemberBulkUpdate.addAge(100),
+                (chunk, chunks, affectedRows, totalAffectedRows) ->
+                        progress.add(chunk + "/" + chunks + ":" + totalAffectedRows));
+
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(progress).containsExactly("1/3:2", "2/3:4", "3/3:5");
+        //청크가 끝나면 영속성 컨텍스트를 비운다.
+        assertThat(em.contains(first)).isFalse();
+
+        List<MemberTeamDto> updated = memberRepository.search(condition);
+        assertThat(updated).extracting("age").containsExactlyInAnyOrder(110, 111, 112, 113, 114);
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        assertThat(memberRepository.search(teamB)).extracting("age").containsExactlyInAnyOrder(20, 21, 22);
+    }
+
+    @Test
+    public void bulkDelete() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(12);
+
+        BulkMutationResult result = memberRepository.bulkDelete(condition, BulkProgressListener.NONE);
+
+        assertThat(result.getAffectedRows()).isEqualTo(3);
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        assertThat(memberRepository.search(teamA)).extracting("username").containsExactly("bulkA0", "bulkA1");
+    }
+
+    @Test
+    public void bulkUpdateNoMatch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("nobody");
+
+        BulkMutationResult result = memberRepository.bulkUpdate(condition,
+                MemberBulkUpdate.setAge(0), BulkProgressListener.NONE);
+
+        assertThat(result.getChunks()).isEqualTo(0);
+        assertThat(result.getAffectedRows()).isEqualTo(0);
+    }
+
+    @Test
+    public void skipEmptyIdRanges() {
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        em.persist(new Member("bulkC0", 30, teamC));
+        //teamC 회원 사이에 다른 팀 회원을 넣어서 id 구간을 벌린다.
+        Team teamD = new Team("teamD");
+        em.persist(teamD);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("bulkD" + i, 40, teamD));
+        }
+        em.persist(new Member("bulkC1", 31, teamC));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        List<Long> affected = new ArrayList<>();
+
+        BulkMutationResult result = memberRepository.bulkUpdate(condition, MemberBulkUpdate.setUsername("renamed"),
+                (chunk, chunks, affectedRows, totalAffectedRows) -> affected.add(affectedRows));
+
+        assertThat(result.getAffectedRows()).isEqualTo(2);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(affected).containsExactly(1L, 1L);
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("renamed", "renamed");
+    }
+}
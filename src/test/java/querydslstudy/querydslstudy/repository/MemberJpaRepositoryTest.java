@@ -1,6 +1,7 @@
 package querydslstudy.querydslstudy.repository;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,8 @@ import querydslstudy.querydslstudy.dto.MemberSearchCondition;
 import querydslstudy.querydslstudy.dto.MemberTeamDto;
 import querydslstudy.querydslstudy.entity.Member;
 import querydslstudy.querydslstudy.entity.Team;
+import querydslstudy.querydslstudy.support.QueryCountScope;
+import querydslstudy.querydslstudy.support.QueryCounter;
 
 import javax.persistence.EntityManager;
 
@@ -29,6 +32,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    QueryCounter queryCounter;
+
     @BeforeEach
     public void before() {
         Team teamA = new Team("teamA");
@@ -125,4 +131,63 @@ class MemberJpaRepositoryTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchMemberWithTeamFetch() {
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        try (QueryCountScope scope = queryCounter.start()) {
+            List<Member> result = memberJpaRepository.searchMember(condition, MemberAssociation.TEAM);
+            for (Member member : result) {
+                member.getTeam().getName();
+            }
+
+            assertThat(result).hasSize(4);
+            assertThat(scope.getCount()).isEqualTo(1);
+            scope.assertNoNPlusOne();
+        }
+    }
+
+    @Test
+    public void searchMemberWithTeamMembers() {
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        try (QueryCountScope scope = queryCounter.start()) {
+            List<Member> result = memberJpaRepository.searchMember(condition, MemberAssociation.TEAM_MEMBERS);
+            for (Member member : result) {
+                member.getTeam().getMembers().size();
+            }
+
+            //member + team fetch join 1번, 두 팀의 members 배치 로딩 1번
+            assertThat(scope.getCount()).isEqualTo(2);
+            scope.assertNoNPlusOne();
+        }
+    }
+
+    @Test
+    public void searchMemberReadOnly() {
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<Member> result = memberJpaRepository.searchMemberReadOnly(condition);
+
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+        assertThat(em.unwrap(Session.class).isReadOnly(result.get(0))).isTrue();
+    }
+
+    @Test
+    public void searchMemberStateless() {
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Member> result = memberJpaRepository.searchMemberStateless(condition);
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result.get(0).getTeam().getName()).isEqualTo("teamB");
+        assertThat(em.contains(result.get(0))).isFalse();
+    }
+}
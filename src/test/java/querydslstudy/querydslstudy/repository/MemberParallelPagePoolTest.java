@@ -0,0 +1,94 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 커넥션 풀(3)보다 동시 요청이 훨씬 많아도 searchPageParallel 이 서로 커넥션을 기다리다 timeout 나지 않아야 한다.
+ * count 풀(1)과 큐(1)가 가득 차면 직렬 count 로 후퇴한다. count 캐시는 꺼서 요청마다 센다.
+ * */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "spring.datasource.hikari.connection-timeout=10000",
+        "member.search.parallel.pool-size=1",
+        "member.search.parallel.queue-capacity=1",
+        "member.search.parallel.timeout=5s",
+        "member.search.count-cache.ttl=0s"})
+class MemberParallelPagePoolTest {
+
+    static final int REQUESTS = 32;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            Team team = new Team("poolTeam");
+            em.persist(team);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("pool" + i, i, team));
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.execute(status -> {
+            em.createQuery("delete from Member m where m.username like 'pool%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'poolTeam'").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    public void saturatedPool() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("poolTeam");
+        ExecutorService requests = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            List<Future<Page<MemberTeamDto>>> results = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(requests.submit(() -> memberRepository.searchPageParallel(condition, PageRequest.of(0, 3))));
+            }
+
+            for (Future<Page<MemberTeamDto>> result : results) {
+                Page<MemberTeamDto> page = result.get();
+                assertThat(page.getContent()).hasSize(3);
+                assertThat(page.getTotalElements()).isEqualTo(10);
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * count 쿼리는 다른 커넥션(새 트랜잭션)에서 실행되므로
+ * 테스트 데이터를 커밋하고 끝나면 직접 지운다.
+ * */
+@SpringBootTest
+class MemberParallelPageTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberCountCache countCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            Team team = new Team("parallelTeam");
+            em.persist(team);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("parallel" + i, i, team));
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.execute(status -> {
+            em.createQuery("delete from Member m where m.username like 'parallel%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'parallelTeam'").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    public void searchPageParallel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelTeam");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(1, 3));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("parallel3", "parallel4", "parallel5");
+        assertThat(result.getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    public void searchPageParallelLastPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelTeam");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(3, 3));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("parallel9");
+        assertThat(result.getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    public void rejectSortBeforeCount() {
+        countCache.invalidateAll();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelTeam");
+
+        assertThatThrownBy(() -> memberRepository.searchPageParallel(condition,
+                PageRequest.of(0, 3, Sort.by("nickname"))))
+                .isInstanceOf(InvalidSortException.class);
+        //정렬을 먼저 검사하므로 count 는 제출되지 않는다.
+        assertThat(countCache.find(condition)).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.Test;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPredicateCompilerTest {
+
+    MemberPredicateCompiler compiler = new MemberPredicateCompiler(100);
+
+    @Test
+    public void normalizeKey() {
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername("");
+        blank.setTeamName(" ");
+        blank.setAgeGoe(10);
+        MemberSearchCondition empty = new MemberSearchCondition();
+        empty.setAgeGoe(10);
+
+        MemberPredicate compiled = compiler.compile(blank);
+
+        assertThat(compiled.getKey()).isEqualTo("u|t|g10|l");
+        assertThat(compiled.getShape().toString()).isEqualTo("ageGoe");
+        assertThat(compiler.compile(empty)).isSameAs(compiled);
+    }
+
+    @Test
+    public void keyDoesNotCollide() {
+        MemberSearchCondition a = new MemberSearchCondition();
+        a.setUsername("a|tb");
+        MemberSearchCondition b = new MemberSearchCondition();
+        b.setUsername("a");
+        b.setTeamName("b");
+
+        assertThat(compiler.compile(a).getKey()).isNotEqualTo(compiler.compile(b).getKey());
+    }
+
+    @Test
+    public void ageBetween() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(30);
+
+        MemberPredicate compiled = compiler.compile(condition);
+
+        assertThat(compiled.getPredicate().toString()).isEqualTo("member1.age between 20 and 30");
+        assertThat(compiled.requiresTeamJoin()).isFalse();
+    }
+
+    @Test
+    public void teamPredicates() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberPredicate compiled = compiler.compile(condition);
+
+        assertThat(compiled.requiresTeamJoin()).isTrue();
+        assertThat(compiled.getPredicate().toString()).isEqualTo("team.name = teamA");
+        assertThat(compiled.getImplicit().toString()).isEqualTo("member1.team.name = teamA");
+    }
+
+    @Test
+    public void noCondition() {
+        MemberPredicate compiled = compiler.compile(new MemberSearchCondition());
+
+        assertThat(compiled.getPredicate()).isNull();
+        assertThat(compiled.getImplicit()).isNull();
+        assertThat(compiled.getBulk()).isNull();
+    }
+}
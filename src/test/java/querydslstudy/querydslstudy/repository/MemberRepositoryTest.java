@@ -1,23 +1,38 @@
 package querydslstudy.querydslstudy.repository;
 
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
 import jdk.nashorn.internal.ir.annotations.Ignore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import querydslstudy.querydslstudy.dto.EstimatedPage;
+import querydslstudy.querydslstudy.dto.MemberKeysetPage;
 import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberSparseDto;
 import querydslstudy.querydslstudy.dto.MemberTeamDto;
 import querydslstudy.querydslstudy.entity.Member;
 import querydslstudy.querydslstudy.entity.QMember;
 import querydslstudy.querydslstudy.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static querydslstudy.querydslstudy.entity.QMember.member;
 
 @SpringBootTest
@@ -30,6 +45,49 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    SqlCaptor sqlCaptor;
+
+    @Autowired
+    MemberSearchTemplates searchTemplates;
+
+    @Autowired
+    MemberPredicateCompiler predicateCompiler;
+
+    @TestConfiguration
+    static class SqlCaptorConfig {
+        @Bean
+        SqlCaptor sqlCaptor() {
+            return new SqlCaptor();
+        }
+    }
+
+    /*
+     * p6spy 가 실행한 SQL 을 모아둔다.
+     * use_sql_comments 로 붙는 JPQL 주석은 제거한다.
+     * */
+    static class SqlCaptor extends SimpleJdbcEventListener {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            statements.add(statementInformation.getSql()
+                    .replaceAll("(?s)/\\*.*?\\*/", "")
+                    .toLowerCase(Locale.ROOT)
+                    .trim());
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<String> countStatements() {
+            return statements.stream()
+                    .filter(sql -> sql.startsWith("select count("))
+                    .collect(Collectors.toList());
+        }
+    }
+
     @BeforeEach
     @Ignore
     public void before() {
@@ -96,6 +154,83 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void searchByTemplate() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+        long invocations = searchTemplates.invocations();
+
+        List<MemberTeamDto> result = memberRepository.searchByTemplate(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result).usingFieldByFieldElementComparator().isEqualTo(memberRepository.search(condition));
+        assertThat(searchTemplates.invocations()).isEqualTo(invocations + 1);
+        assertThat(searchTemplates.getTemplates()).hasSize(16);
+    }
+
+    @Test
+    public void stream() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberRepository.stream(condition, result::add);
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void searchSparseWithoutTeamJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        sqlCaptor.clear();
+
+        List<MemberSparseDto> result = memberRepository.searchSparse(condition, MemberField.parse("memberId,username,teamId"));
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).extracting("teamId").doesNotContainNull();
+        assertThat(result).extracting("age").containsOnlyNulls();
+        assertThat(result).extracting("teamName").containsOnlyNulls();
+        assertThat(sqlCaptor.statements).hasSize(1);
+        assertThat(sqlCaptor.statements.get(0))
+                .doesNotContain("join")
+                .doesNotContain("age as");
+    }
+
+    @Test
+    public void searchSparseJoinsTeamOnlyWhenNeeded() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        sqlCaptor.clear();
+
+        List<MemberSparseDto> byTeamCondition = memberRepository.searchSparse(condition, MemberField.parse("username"));
+        List<MemberSparseDto> withTeamName = memberRepository
+                .searchSparse(new MemberSearchCondition(), MemberField.parse("username, teamName"));
+
+        assertThat(byTeamCondition).extracting("username").containsExactly("member3", "member4");
+        assertThat(withTeamName).extracting("teamName").containsExactly("teamA", "teamA", "teamB", "teamB");
+        assertThat(sqlCaptor.statements).allMatch(sql -> sql.contains("left outer join team"));
+    }
+
+    @Test
+    public void searchPageSparse() {
+        Page<MemberSparseDto> result = memberRepository
+                .searchPageSparse(new MemberSearchCondition(), MemberField.parse("username"), PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void invalidFields() {
+        assertThatThrownBy(() -> MemberField.parse("username,password"))
+                .isInstanceOf(InvalidFieldsException.class);
+        assertThatThrownBy(() -> MemberField.parse(""))
+                .isInstanceOf(InvalidFieldsException.class);
+    }
+
     @Test
     public void searchPageSimple() {
 
@@ -120,6 +255,129 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageSorted() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> byAgeDesc = memberRepository
+                .searchPageComplex(condition, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+        Page<MemberTeamDto> byUsernameDesc = memberRepository
+                .searchPageSimple(condition, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username")));
+
+        assertThat(byAgeDesc.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(byUsernameDesc.getContent()).extracting("username").containsExactly("member4", "member3");
+        assertThatThrownBy(() -> memberRepository
+                .searchPageSimple(condition, PageRequest.of(0, 2, Sort.by("teamName"))))
+                .isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    public void searchSlice() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        sqlCaptor.clear();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.hasNext()).isFalse();
+        assertThat(sqlCaptor.countStatements()).isEmpty();
+    }
+
+    @Test
+    public void countQueryWithoutTeamCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        sqlCaptor.clear();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition, PageRequest.of(0, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(sqlCaptor.countStatements()).hasSize(1);
+        assertThat(sqlCaptor.countStatements().get(0))
+                .contains("count(member0_.member_id)")
+                .doesNotContain("join")
+                .doesNotContain("team");
+    }
+
+    @Test
+    public void countQueryWithTeamCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        sqlCaptor.clear();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(sqlCaptor.countStatements()).hasSize(1);
+        assertThat(sqlCaptor.countStatements().get(0))
+                .contains("count(member0_.member_id)")
+                .contains("join team");
+    }
+
+    @Test
+    public void searchPageWindowed() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        sqlCaptor.clear();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageWindowed(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(sqlCaptor.statements).hasSize(1);
+        assertThat(sqlCaptor.statements.get(0)).contains("count(*) over()");
+    }
+
+    @Test
+    public void searchPageWindowedPastLastPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        sqlCaptor.clear();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageWindowed(condition, PageRequest.of(5, 2));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(sqlCaptor.countStatements()).hasSize(1);
+    }
+
+    @Test
+    public void searchPageEstimated() {
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        EstimatedPage<MemberTeamDto> firstPage = (EstimatedPage<MemberTeamDto>) memberRepository
+                .searchPageEstimated(condition, PageRequest.of(0, 3));
+
+        assertThat(firstPage.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(firstPage.isApproximate()).isTrue();
+        assertThat(firstPage.getTotalElements()).isGreaterThanOrEqualTo(4);
+
+        EstimatedPage<MemberTeamDto> lastPage = (EstimatedPage<MemberTeamDto>) memberRepository
+                .searchPageEstimated(condition, PageRequest.of(1, 3));
+
+        assertThat(lastPage.isApproximate()).isFalse();
+        assertThat(lastPage.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchKeyset() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberKeysetPage first = memberRepository.searchKeyset(condition, MemberCursor.first(MemberCursor.Sort.AGE), 3);
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberKeysetPage second = memberRepository.searchKeyset(condition, MemberCursor.decode(first.getNextCursor()), 3);
+
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         /*
@@ -139,4 +397,15 @@ class MemberRepositoryTest {
             System.out.println("member = " + member);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void querydslPredicateExecutorWithCompiledPredicate() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        Iterable<Member> result = memberRepository.findAll(predicateCompiler.compile(condition).getImplicit());
+
+        assertThat(result).extracting("username").containsExactly("member4");
+    }
+}
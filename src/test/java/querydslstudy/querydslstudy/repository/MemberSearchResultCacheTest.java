@@ -0,0 +1,182 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+import querydslstudy.querydslstudy.dto.MemberTeamDto;
+import querydslstudy.querydslstudy.entity.Member;
+import querydslstudy.querydslstudy.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 캐시는 읽기 전용 트랜잭션에서만 쓰이므로 데이터를 커밋하고 끝나면 직접 지운다.
+ * */
+@SpringBootTest(properties = "member.search.result-cache.enabled=true")
+class MemberSearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchResultCache resultCache;
+
+    @Autowired
+    MemberPredicateCompiler predicates;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Team cacheTeam;
+
+    @BeforeEach
+    public void before() {
+        resultCache.invalidateAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cacheTeam = transactionTemplate.execute(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            em.persist(new Member("cache1", 10, team));
+            em.persist(new Member("cache2", 20, team));
+            return team;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.execute(status -> {
+            em.createQuery("delete from Member m where m.username like 'cache%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'cacheTeam%'").executeUpdate();
+            return null;
+        });
+        resultCache.invalidateAll();
+    }
+
+    @Test
+    public void sharedBetweenRepositories() {
+        MemberSearchCondition condition = teamCondition();
+
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        List<MemberTeamDto> second = memberJpaRepository.searchByWhere(condition);
+
+        assertThat(first).extracting("username").containsExactly("cache1", "cache2");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void invalidateOnSave() {
+        MemberSearchCondition condition = teamCondition();
+        List<MemberTeamDto> before = memberRepository.search(condition);
+
+        transactionTemplate.execute(status -> {
+            memberJpaRepository.save(new Member("cache3", 30, em.find(Team.class, cacheTeam.getId())));
+            return null;
+        });
+
+        List<MemberTeamDto> after = memberRepository.search(condition);
+        assertThat(after).isNotSameAs(before);
+        assertThat(after).extracting("username").containsExactly("cache1", "cache2", "cache3");
+    }
+
+    @Test
+    public void keepUnrelatedEntries() {
+        MemberSearchCondition condition = teamCondition();
+        condition.setAgeLoe(15);
+        List<MemberTeamDto> before = memberRepository.search(condition);
+
+        //나이가 조건 밖이고 결과에도 없는 회원이 추가되면 엔트리는 그대로다.
+        transactionTemplate.execute(status -> {
+            memberJpaRepository.save(new Member("cache4", 40, em.find(Team.class, cacheTeam.getId())));
+            return null;
+        });
+
+        assertThat(memberRepository.search(condition)).isSameAs(before);
+    }
+
+    @Test
+    public void bypassInWriteTransaction() {
+        MemberSearchCondition condition = teamCondition();
+        List<MemberTeamDto> cached = memberRepository.search(condition);
+
+        List<MemberTeamDto> inWrite = transactionTemplate.execute(status -> memberRepository.search(condition));
+
+        assertThat(inWrite).isNotSameAs(cached);
+    }
+
+    @Test
+    public void discardLoadChangedDuringQuery() {
+        MemberPredicate predicate = predicates.compile(teamCondition());
+        AtomicInteger queries = new AtomicInteger();
+
+        //조회 도중 다른 트랜잭션이 결과에 들어갈 회원을 커밋한다.
+        cachedGet(predicate, () -> {
+            queries.incrementAndGet();
+            saveInOtherThread("cache5", 50);
+            return new ArrayList<>();
+        });
+        cachedGet(predicate, () -> {
+            queries.incrementAndGet();
+            return new ArrayList<>();
+        });
+
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    public void keepLoadWhenUnrelatedChangeDuringQuery() {
+        MemberSearchCondition condition = teamCondition();
+        condition.setAgeLoe(15);
+        MemberPredicate predicate = predicates.compile(condition);
+        AtomicInteger queries = new AtomicInteger();
+        Supplier<List<MemberTeamDto>> query = () -> {
+            queries.incrementAndGet();
+            if (queries.get() == 1) {
+                saveInOtherThread("cache6", 60);
+            }
+            return new ArrayList<>();
+        };
+
+        cachedGet(predicate, query);
+        cachedGet(predicate, query);
+
+        assertThat(queries).hasValue(1);
+    }
+
+    private List<MemberTeamDto> cachedGet(MemberPredicate predicate, Supplier<List<MemberTeamDto>> query) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> resultCache.get(predicate, query));
+    }
+
+    private void saveInOtherThread(String username, int age) {
+        CompletableFuture.runAsync(() -> transactionTemplate.execute(status -> {
+            memberJpaRepository.save(new Member(username, age, em.find(Team.class, cacheTeam.getId())));
+            return null;
+        })).join();
+    }
+
+    private MemberSearchCondition teamCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        return condition;
+    }
+}
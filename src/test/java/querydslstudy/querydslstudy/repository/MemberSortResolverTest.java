@@ -0,0 +1,119 @@
+package querydslstudy.querydslstudy.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSortResolverTest {
+
+    MemberPredicateCompiler compiler = new MemberPredicateCompiler(100);
+    MemberSortResolver reject = new MemberSortResolver(MemberSortResolver.Policy.REJECT);
+    MemberSortResolver degrade = new MemberSortResolver(MemberSortResolver.Policy.DEGRADE);
+
+    @Test
+    public void unsorted() {
+        MemberOrder order = reject.resolve(Sort.unsorted(), compiler.compile(new MemberSearchCondition()));
+
+        assertThat(order.isUnsorted()).isTrue();
+        assertThat(order.getOrdersOrById()).extracting(Object::toString).containsExactly("member1.id ASC");
+    }
+
+    @Test
+    public void idTiebreakerFollowsFirstDirection() {
+        MemberOrder order = reject.resolve(Sort.by(Sort.Direction.DESC, "age"),
+                compiler.compile(new MemberSearchCondition()));
+
+        assertThat(order.getOrders()).extracting(Object::toString)
+                .containsExactly("member1.age DESC", "member1.id DESC");
+        assertThat(order.requiresTeamJoin()).isFalse();
+    }
+
+    @Test
+    public void unknownPropertyIsAlwaysRejected() {
+        MemberPredicate none = compiler.compile(new MemberSearchCondition());
+
+        assertThatThrownBy(() -> reject.resolve(Sort.by("password"), none)).isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> degrade.resolve(Sort.by("password"), none)).isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    public void unindexedSortIsRejected() {
+        MemberPredicate none = compiler.compile(new MemberSearchCondition());
+
+        assertThatThrownBy(() -> reject.resolve(Sort.by("teamName"), none)).isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> reject.resolve(Sort.by("username", "age"), none))
+                .isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    public void unindexedSortIsDegraded() {
+        MemberPredicate none = compiler.compile(new MemberSearchCondition());
+
+        assertThat(degrade.resolve(Sort.by("teamName"), none).getOrders()).extracting(Object::toString)
+                .containsExactly("member1.id ASC");
+        assertThat(degrade.resolve(Sort.by("teamName", "username"), none).getOrders()).extracting(Object::toString)
+                .containsExactly("member1.username ASC", "member1.id ASC");
+    }
+
+    @Test
+    public void conditionMakesSortSafe() {
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member1");
+
+        MemberOrder teamOrder = reject.resolve(Sort.by("teamName"), compiler.compile(byTeam));
+        MemberOrder anyOrder = reject.resolve(Sort.by("teamName", "age"), compiler.compile(byUsername));
+
+        assertThat(teamOrder.requiresTeamJoin()).isTrue();
+        assertThat(anyOrder.getOrders()).extracting(Object::toString)
+                .containsExactly("team.name ASC", "member1.age ASC", "member1.id ASC");
+    }
+
+    @Test
+    public void usernameOnlyWithoutTeamOrAgeFilter() {
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        MemberSearchCondition byAgeLoe = new MemberSearchCondition();
+        byAgeLoe.setAgeLoe(30);
+
+        assertThat(reject.resolve(Sort.by("username"), compiler.compile(new MemberSearchCondition())).getOrders())
+                .extracting(Object::toString).containsExactly("member1.username ASC", "member1.id ASC");
+        assertThatThrownBy(() -> reject.resolve(Sort.by("username"), compiler.compile(byTeam)))
+                .isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> reject.resolve(Sort.by("username"), compiler.compile(byAge)))
+                .isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> reject.resolve(Sort.by("username"), compiler.compile(byAgeLoe)))
+                .isInstanceOf(InvalidSortException.class);
+        assertThat(degrade.resolve(Sort.by("username"), compiler.compile(byAge)).getOrders())
+                .extracting(Object::toString).containsExactly("member1.id ASC");
+    }
+
+    @Test
+    public void ageWithAgeOrTeamIndex() {
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition byTeamAndAge = new MemberSearchCondition();
+        byTeamAndAge.setTeamName("teamA");
+        byTeamAndAge.setAgeLoe(30);
+
+        //idx_member_age
+        assertThat(reject.resolve(Sort.by("age"), compiler.compile(byAge)).getOrders())
+                .extracting(Object::toString).containsExactly("member1.age ASC", "member1.id ASC");
+        //idx_member_team_age
+        assertThat(reject.resolve(Sort.by("age"), compiler.compile(byTeam)).getOrders())
+                .extracting(Object::toString).containsExactly("member1.age ASC", "member1.id ASC");
+        assertThat(reject.resolve(Sort.by(Sort.Direction.DESC, "age"), compiler.compile(byTeamAndAge)).getOrders())
+                .extracting(Object::toString).containsExactly("member1.age DESC", "member1.id DESC");
+        //두 번째 정렬은 여전히 받쳐줄 인덱스가 없다.
+        assertThatThrownBy(() -> reject.resolve(Sort.by("age", "username"), compiler.compile(byTeam)))
+                .isInstanceOf(InvalidSortException.class);
+    }
+}
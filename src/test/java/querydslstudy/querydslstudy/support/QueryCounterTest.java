@@ -0,0 +1,38 @@
+package querydslstudy.querydslstudy.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryCounterTest {
+
+    QueryCounter queryCounter = new QueryCounter();
+
+    @Test
+    public void detectNPlusOne() {
+        try (QueryCountScope scope = queryCounter.start()) {
+            queryCounter.record("select member0_.member_id from member member0_");
+            for (int i = 0; i < 3; i++) {
+                queryCounter.record("/* load Team */ select team0_.team_id from team team0_ where team0_.team_id=?");
+            }
+
+            assertThat(scope.getCount()).isEqualTo(4);
+            assertThatThrownBy(scope::assertNoNPlusOne).isInstanceOf(NPlusOneDetectedException.class);
+        }
+    }
+
+    @Test
+    public void nestedScope() {
+        try (QueryCountScope outer = queryCounter.start()) {
+            try (QueryCountScope inner = queryCounter.start()) {
+                queryCounter.record("select 1");
+                assertThat(inner.getCount()).isEqualTo(1);
+            }
+            queryCounter.record("select 2");
+
+            assertThat(outer.getCount()).isEqualTo(2);
+        }
+        queryCounter.record("select 3");
+    }
+}
@@ -0,0 +1,52 @@
+package querydslstudy.querydslstudy.support;
+
+import org.junit.jupiter.api.Test;
+import querydslstudy.querydslstudy.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryRecorderTest {
+
+    SlowQueryRecorder recorder = new SlowQueryRecorder(Duration.ofMillis(100), 1.0, 3);
+
+    @Test
+    public void threshold() {
+        assertThat(recorder.isSlow(TimeUnit.MILLISECONDS.toNanos(99))).isFalse();
+        assertThat(recorder.isSlow(TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+    }
+
+    @Test
+    public void recordWithContext() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        SearchContext previous = recorder.enter("MemberRepositoryImpl.search", condition);
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(150), 2, "select 1", null);
+        recorder.exit(previous);
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(150), 0, "select 2", null);
+
+        List<SlowQuery> recent = recorder.recent();
+        assertThat(recent).extracting("sql").containsExactly("select 2", "select 1");
+        assertThat(recent.get(1).getMethod()).isEqualTo("MemberRepositoryImpl.search");
+        assertThat(recent.get(1).getCondition()).contains("teamName=teamA");
+        assertThat(recent.get(1).getElapsedMillis()).isEqualTo(150.0);
+        assertThat(recent.get(0).getMethod()).isNull();
+        assertThat(recorder.current()).isNull();
+    }
+
+    @Test
+    public void ringBuffer() {
+        for (int i = 0; i < 5; i++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(200), i, "select " + i, null);
+        }
+
+        assertThat(recorder.recent()).extracting("sql").containsExactly("select 4", "select 3", "select 2");
+
+        recorder.clear();
+        assertThat(recorder.recent()).isEmpty();
+    }
+}
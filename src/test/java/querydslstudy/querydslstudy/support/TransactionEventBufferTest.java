@@ -0,0 +1,72 @@
+package querydslstudy.querydslstudy.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionEventBufferTest {
+
+    List<List<Integer>> batches = new ArrayList<>();
+    List<Boolean> overflows = new ArrayList<>();
+    List<Boolean> commits = new ArrayList<>();
+
+    TransactionEventBuffer<Integer> buffer = new TransactionEventBuffer<>(3, (events, overflow, committed) -> {
+        batches.add(new ArrayList<>(events));
+        overflows.add(overflow);
+        commits.add(committed);
+    });
+
+    @AfterEach
+    public void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void oneSynchronizationPerTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i);
+        }
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        assertThat(batches).isEmpty();
+
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(batches).containsExactly(Arrays.asList(0, 1, 2));
+        assertThat(overflows).containsExactly(true);
+        assertThat(commits).containsExactly(true);
+    }
+
+    @Test
+    public void rolledBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        buffer.add(1);
+
+        TransactionSynchronizationManager.getSynchronizations().get(0)
+                .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(batches).containsExactly(Arrays.asList(1));
+        assertThat(overflows).containsExactly(false);
+        assertThat(commits).containsExactly(false);
+    }
+
+    @Test
+    public void withoutTransaction() {
+        buffer.add(1);
+        buffer.add(2);
+
+        assertThat(batches).containsExactly(Arrays.asList(1), Arrays.asList(2));
+        assertThat(commits).containsExactly(true, true);
+    }
+}